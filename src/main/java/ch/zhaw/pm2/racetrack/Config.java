@@ -12,9 +12,18 @@ import static ch.zhaw.pm2.racetrack.given.ConfigSpecification.SpaceType.*;
 public class Config implements ConfigSpecification {
 
   public static final int MIN_CARS = 2;
+  public static final long DEFAULT_PARALLEL_DISTANCE_FIELD_THRESHOLD = 1_000_000;
+  public static final int DEFAULT_MAX_SEARCH_DEPTH = 250_000;
+  public static final int DEFAULT_LEGAL_MOVE_MAX_SPEED = 6;
+  public static final long DEFAULT_POLICY_TABLE_MAX_STATES = 16_000_000;
   private File trackDirectory = new File("tracks");
   private File moveDirectory = new File("moves");
   private File followerDirectory = new File("follower");
+  private File cacheDirectory = new File("cache");
+  private long parallelDistanceFieldThreshold = DEFAULT_PARALLEL_DISTANCE_FIELD_THRESHOLD;
+  private int maxSearchDepth = DEFAULT_MAX_SEARCH_DEPTH;
+  private int legalMoveMaxSpeed = DEFAULT_LEGAL_MOVE_MAX_SPEED;
+  private long policyTableMaxStates = DEFAULT_POLICY_TABLE_MAX_STATES;
 
   /**
    * Method to get the possible move directions.
@@ -73,6 +82,113 @@ public class Config implements ConfigSpecification {
     this.trackDirectory = trackDirectory;
   }
 
+  /**
+   * Method to get the directory of the cached planning data of the path finder.
+   *
+   * @return Directory of the planning cache, null if the path finder plans without cache.
+   */
+  public File getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  /**
+   * Method to set the directory of the cached planning data of the path finder.
+   *
+   * @param cacheDirectory directory of the planning cache, null to plan without cache.
+   */
+  public void setCacheDirectory(File cacheDirectory) {
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * Method to get the track size from which on the distance field of the path finder is computed in parallel.
+   *
+   * @return number of spaces (width * height) of the track.
+   */
+  public long getParallelDistanceFieldThreshold() {
+    return parallelDistanceFieldThreshold;
+  }
+
+  /**
+   * Method to set the track size from which on the distance field of the path finder is computed in parallel.
+   *
+   * @param parallelDistanceFieldThreshold number of spaces (width * height) of the track.
+   */
+  public void setParallelDistanceFieldThreshold(long parallelDistanceFieldThreshold) {
+    if (parallelDistanceFieldThreshold < 0) {
+      throw new IllegalArgumentException("The threshold must not be negative");
+    }
+    this.parallelDistanceFieldThreshold = parallelDistanceFieldThreshold;
+  }
+
+  /**
+   * Method to get the maximum depth of the depth first search of the path finder.
+   * Each level of depth takes 64 bytes, so this limits the memory of the search stack.
+   *
+   * @return maximum number of moves the search looks ahead.
+   */
+  public int getMaxSearchDepth() {
+    return maxSearchDepth;
+  }
+
+  /**
+   * Method to set the maximum depth of the depth first search of the path finder.
+   *
+   * @param maxSearchDepth maximum number of moves the search looks ahead.
+   */
+  public void setMaxSearchDepth(int maxSearchDepth) {
+    if (maxSearchDepth <= 0) {
+      throw new IllegalArgumentException("The maximum search depth must be positive");
+    }
+    this.maxSearchDepth = maxSearchDepth;
+  }
+
+  /**
+   * Method to get the largest velocity component up to which the path finder looks up its legal moves in a
+   * table instead of checking every move for walls. The table takes 338 bytes per space at the default speed,
+   * so it is only built once a search has checked a third as many moves as the table would hold.
+   *
+   * @return maximum speed covered by the legal move table.
+   */
+  public int getLegalMoveMaxSpeed() {
+    return legalMoveMaxSpeed;
+  }
+
+  /**
+   * Method to set the largest velocity component up to which the path finder looks up its legal moves.
+   *
+   * @param legalMoveMaxSpeed maximum speed covered by the legal move table.
+   */
+  public void setLegalMoveMaxSpeed(int legalMoveMaxSpeed) {
+    if (legalMoveMaxSpeed < 0) {
+      throw new IllegalArgumentException("The maximum speed must not be negative");
+    }
+    this.legalMoveMaxSpeed = legalMoveMaxSpeed;
+  }
+
+  /**
+   * Method to get the number of states up to which the path finder plans with a policy table. The table has a
+   * state for every space which is not a wall and every velocity the board allows, and takes 2.6 bytes per
+   * state. Larger tracks are planned with A* instead.
+   *
+   * @return maximum number of states of a policy table.
+   */
+  public long getPolicyTableMaxStates() {
+    return policyTableMaxStates;
+  }
+
+  /**
+   * Method to set the number of states up to which the path finder plans with a policy table.
+   *
+   * @param policyTableMaxStates maximum number of states of a policy table, 0 to always plan with A* instead.
+   */
+  public void setPolicyTableMaxStates(long policyTableMaxStates) {
+    if (policyTableMaxStates < 0) {
+      throw new IllegalArgumentException("The number of states must not be negative");
+    }
+    this.policyTableMaxStates = policyTableMaxStates;
+  }
+
   /**
    * Method to check if the given character is a
    * finish line character.
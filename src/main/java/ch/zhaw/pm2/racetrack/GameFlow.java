@@ -4,9 +4,11 @@ import ch.zhaw.pm2.racetrack.exceptions.EveryoneChoseDoNotMoveStrategyException;
 import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
 import ch.zhaw.pm2.racetrack.exceptions.NoTracksFoundException;
 import ch.zhaw.pm2.racetrack.game.Car;
+import ch.zhaw.pm2.racetrack.game.CompiledTrack;
 import ch.zhaw.pm2.racetrack.game.Game;
 import ch.zhaw.pm2.racetrack.game.PositionVector;
 import ch.zhaw.pm2.racetrack.game.Track;
+import ch.zhaw.pm2.racetrack.game.TrackLayout;
 import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
 import ch.zhaw.pm2.racetrack.io.Terminal;
 import ch.zhaw.pm2.racetrack.io.UserInterface;
@@ -25,9 +27,16 @@ public class GameFlow {
   private final UserInterface ui;
   private final Config config;
   private Track track;
+  /**
+   * The layout of the last loaded track file, reused when the same track is played again.
+   */
+  private TrackLayout layout;
+  private File layoutFile;
+  private long layoutFileModified;
 
   private final static int EXIT_FAILURE = 1;
   private final static int EXIT_SUCCESS = 0;
+  private final static long MAPPED_TRACK_FILE_SIZE = 64L * 1024 * 1024;
 
   public GameFlow() {
     ui = Terminal.getInstance();
@@ -112,7 +121,7 @@ public class GameFlow {
   }
 
   private void setCarMoveStrategy(Track track, int i) {
-    MoveStrategy moveStrategy = getMoveStrategy(track.getCar(i).getPosition());
+    MoveStrategy moveStrategy = getMoveStrategy(track.getCar(i));
     track.getCar(i).setMoveStrategy(moveStrategy);
   }
 
@@ -130,9 +139,10 @@ public class GameFlow {
   /**
    * Lets the player select MoveStrategy for his car
    *
+   * @param car the car at its start position
    * @return MoveStrategy chosen by the player
    */
-  public MoveStrategy getMoveStrategy(PositionVector startPosition) {
+  public MoveStrategy getMoveStrategy(Car car) {
     while (true) {
       ConfigSpecification.StrategyType moveStrategyType = ui.getEnum(
               ConfigSpecification.StrategyType.class, "Choose a movement strategy:"
@@ -149,11 +159,13 @@ public class GameFlow {
           if (moveList != null) return moveList;
         }
         case PATH_FOLLOWER -> {
-          PathFollowerMoveStrategy followerList = getPathFollowerMoveStrategy(startPosition);
+          PathFollowerMoveStrategy followerList = getPathFollowerMoveStrategy(car.getPosition());
           if (followerList != null) return followerList;
         }
         case PATH_FINDER -> {
-          return new PathFinderStrategy(track.getGrid(), startPosition);
+          PathFinderStrategy.PlanningMode planningMode = ui.getEnum(
+                  PathFinderStrategy.PlanningMode.class, "Choose a planning mode:");
+          return new PathFinderStrategy(track, car, planningMode, config);
         }
       }
     }
@@ -190,13 +202,14 @@ public class GameFlow {
     boolean couldNotFindTracks = false;
     while (true) {
       try {
-        File[] foundTracks = config.getTrackDirectory().listFiles((dir, name) -> name.endsWith(".txt"));
+        File[] foundTracks = config.getTrackDirectory().listFiles(
+                (dir, name) -> name.endsWith(".txt") || name.endsWith(CompiledTrack.FILE_EXTENSION));
         assert foundTracks != null;
         if (foundTracks.length == 0) {
           throw new NoTracksFoundException();
         }
         File chosenTrack = ui.getFile(foundTracks, "Choose a track:");
-        return new Track(chosenTrack);
+        return new Track(loadLayout(chosenTrack));
       } catch (FileNotFoundException | InvalidTrackFormatException e) {
         ui.displayError(uiErrorMessage(e));
       } catch (NoTracksFoundException e) {
@@ -213,6 +226,27 @@ public class GameFlow {
     return null;
   }
 
+  /**
+   * Loads the layout of the given track file.
+   * The layout of the previous game is reused if the same, unchanged file is chosen again.
+   *
+   * @param trackFile the chosen track file
+   * @return the layout of the track
+   */
+  private TrackLayout loadLayout(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
+    if (trackFile.equals(layoutFile) && trackFile.lastModified() == layoutFileModified) {
+      return layout;
+    }
+    TrackLayout loaded = trackFile.length() < MAPPED_TRACK_FILE_SIZE
+            ? TrackLayout.load(trackFile)
+            : TrackLayout.map(trackFile);
+    ui.displayMessage(loaded.getLoadStatistics().toString());
+    layout = loaded;
+    layoutFile = trackFile;
+    layoutFileModified = trackFile.lastModified();
+    return loaded;
+  }
+
   /**
    * Represents the run phase of the game
    * Each player selects a move until someone won the game
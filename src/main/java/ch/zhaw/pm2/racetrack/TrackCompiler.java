@@ -0,0 +1,88 @@
+package ch.zhaw.pm2.racetrack;
+
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.CompiledTrack;
+import ch.zhaw.pm2.racetrack.game.TrackLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line tool which compiles text track files into the {@link CompiledTrack compiled track format}.
+ * Each {@code name.txt} is compiled to {@code name.rtk} in the same directory, compiled files which are newer
+ * than their text track are left as they are.
+ *
+ * <p>Arguments are track files or directories, all {@code .txt} files of a directory are compiled.
+ * Without arguments the track directory of the {@link Config} is compiled.</p>
+ */
+public class TrackCompiler {
+  private static final String TEXT_EXTENSION = ".txt";
+  private static final int EXIT_FAILURE = 1;
+
+  public static void main(String[] args) {
+    List<File> trackFiles = new ArrayList<>();
+    if (args.length == 0) {
+      addTrackFiles(new Config().getTrackDirectory(), trackFiles);
+    }
+    for (String arg : args) {
+      addTrackFiles(new File(arg), trackFiles);
+    }
+    int failures = 0;
+    for (File trackFile : trackFiles) {
+      try {
+        compile(trackFile);
+      } catch (IOException | InvalidTrackFormatException e) {
+        System.err.printf("Error: %s could not be compiled: %s%n", trackFile, e.getMessage());
+        failures++;
+      }
+    }
+    if (failures > 0) {
+      System.exit(EXIT_FAILURE);
+    }
+  }
+
+  /**
+   * Compiles a text track file, unless its compiled file is up to date.
+   *
+   * @param trackFile the text track file
+   * @return the compiled track file
+   * @throws IOException                 if the track could not be read or the compiled track not be written
+   * @throws InvalidTrackFormatException if the track file contains invalid data
+   */
+  public static File compile(File trackFile) throws IOException, InvalidTrackFormatException {
+    File target = compiledFile(trackFile);
+    if (target.lastModified() > trackFile.lastModified()) {
+      return target;
+    }
+    TrackLayout layout = TrackLayout.load(trackFile);
+    CompiledTrack.write(layout, target);
+    System.out.printf("Compiled %s (%d bytes) to %s (%d bytes)%n",
+            trackFile, trackFile.length(), target, target.length());
+    return target;
+  }
+
+  /**
+   * @param trackFile a text track file
+   * @return the file the compiled track is written to
+   */
+  public static File compiledFile(File trackFile) {
+    String name = trackFile.getName();
+    if (name.endsWith(TEXT_EXTENSION)) {
+      name = name.substring(0, name.length() - TEXT_EXTENSION.length());
+    }
+    return new File(trackFile.getParentFile(), name + CompiledTrack.FILE_EXTENSION);
+  }
+
+  private static void addTrackFiles(File file, List<File> trackFiles) {
+    if (!file.isDirectory()) {
+      trackFiles.add(file);
+      return;
+    }
+    File[] found = file.listFiles((dir, name) -> name.endsWith(TEXT_EXTENSION));
+    if (found != null) {
+      trackFiles.addAll(List.of(found));
+    }
+  }
+}
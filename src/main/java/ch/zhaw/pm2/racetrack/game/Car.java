@@ -45,6 +45,16 @@ public class Car implements CarSpecification {
    */
   private int roundCount = 0;
 
+  /**
+   * The track the car races on, notified about every position change. Null for a car without track.
+   */
+  private Track track;
+
+  /**
+   * Index of the car on its {@link #track}.
+   */
+  private int trackIndex;
+
   /**
    * Constructor for class Car
    *
@@ -83,12 +93,17 @@ public class Car implements CarSpecification {
    * Set this Car position directly, regardless of current position and velocity.
    * This should only be used by the game controller in rare cases to set the crash or winning position.
    * The next position is normaly automatically calculated and set in the {@link #move()} method.
+   * The given vector must not be modified afterwards, as the track indexes the car by its position.
    *
    * @param position The new position to set the car directly to.
    */
   @Override
   public void setPosition(final PositionVector position) {
+    PositionVector previousPosition = this.position;
     this.position = position;
+    if (track != null) {
+      track.carMoved(trackIndex, previousPosition, position);
+    }
   }
 
   /**
@@ -120,7 +135,7 @@ public class Car implements CarSpecification {
    */
   @Override
   public void move() {
-    this.position = nextPosition();
+    setPosition(nextPosition());
   }
 
   /**
@@ -191,6 +206,17 @@ public class Car implements CarSpecification {
     return roundCount;
   }
 
+  /**
+   * Places the car on the given track, which from now on is notified about the car's position changes.
+   *
+   * @param track      the track the car races on
+   * @param trackIndex the index of the car on the track
+   */
+  void placeOn(Track track, int trackIndex) {
+    this.track = track;
+    this.trackIndex = trackIndex;
+  }
+
   /**
    * Set move strategy
    *
@@ -0,0 +1,162 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import java.util.Arrays;
+
+/**
+ * Index of the board spaces which are occupied by cars.
+ *
+ * <p>Primitive open-addressing hash map (linear probing) from the row-major cell index of a space to the
+ * lowest index of the cars standing on it and the number of those cars. Its size depends on the number
+ * of cars only, not on the size of the board.</p>
+ */
+final class CarOccupancy {
+  static final int NO_CAR = -1;
+  private static final int EMPTY = -1;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] cells;
+  private int[] firstCars;
+  private int[] counts;
+  private int size;
+
+  CarOccupancy() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Returns the lowest index of the cars standing on the given space.
+   *
+   * @param cell row-major cell index of the space
+   * @return the car index, or {@link #NO_CAR} if the space is free
+   */
+  int firstCar(int cell) {
+    int slot = find(cell);
+    return slot == EMPTY ? NO_CAR : firstCars[slot];
+  }
+
+  /**
+   * @param cell row-major cell index of the space
+   * @return the number of cars standing on the given space
+   */
+  int carCount(int cell) {
+    int slot = find(cell);
+    return slot == EMPTY ? 0 : counts[slot];
+  }
+
+  /**
+   * Registers a car standing on the given space.
+   *
+   * @param cell     row-major cell index of the space
+   * @param carIndex index of the car
+   */
+  void add(int cell, int carIndex) {
+    int slot = find(cell);
+    if (slot != EMPTY) {
+      firstCars[slot] = Math.min(firstCars[slot], carIndex);
+      counts[slot]++;
+      return;
+    }
+    if (2 * (size + 1) > cells.length) {
+      grow();
+    }
+    insert(cell, carIndex, 1);
+    size++;
+  }
+
+  /**
+   * Unregisters a car from the given space.
+   *
+   * @param cell     row-major cell index of the space
+   * @param carIndex index of the car
+   * @return true if other cars remain on the space and the removed car was the lowest of them, in which case
+   * the caller has to determine the new lowest car and set it with {@link #setFirstCar(int, int)}
+   */
+  boolean remove(int cell, int carIndex) {
+    int slot = find(cell);
+    if (slot == EMPTY) {
+      return false;
+    }
+    if (--counts[slot] > 0) {
+      return firstCars[slot] == carIndex;
+    }
+    delete(slot);
+    size--;
+    return false;
+  }
+
+  /**
+   * Replaces the lowest car index of an occupied space.
+   *
+   * @param cell     row-major cell index of the space
+   * @param carIndex index of the car
+   */
+  void setFirstCar(int cell, int carIndex) {
+    int slot = find(cell);
+    if (slot != EMPTY) {
+      firstCars[slot] = carIndex;
+    }
+  }
+
+  private int find(int cell) {
+    int mask = cells.length - 1;
+    for (int slot = hash(cell) & mask; cells[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (cells[slot] == cell) {
+        return slot;
+      }
+    }
+    return EMPTY;
+  }
+
+  private void insert(int cell, int firstCar, int count) {
+    int mask = cells.length - 1;
+    int slot = hash(cell) & mask;
+    while (cells[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    cells[slot] = cell;
+    firstCars[slot] = firstCar;
+    counts[slot] = count;
+  }
+
+  /**
+   * Removes the entry in the given slot and shifts the following entries of its probe sequence back.
+   */
+  private void delete(int slot) {
+    int mask = cells.length - 1;
+    int gap = slot;
+    for (int next = (gap + 1) & mask; cells[next] != EMPTY; next = (next + 1) & mask) {
+      int home = hash(cells[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        cells[gap] = cells[next];
+        firstCars[gap] = firstCars[next];
+        counts[gap] = counts[next];
+        gap = next;
+      }
+    }
+    cells[gap] = EMPTY;
+  }
+
+  private void grow() {
+    int[] oldCells = cells;
+    int[] oldFirstCars = firstCars;
+    int[] oldCounts = counts;
+    allocate(oldCells.length * 2);
+    for (int slot = 0; slot < oldCells.length; slot++) {
+      if (oldCells[slot] != EMPTY) {
+        insert(oldCells[slot], oldFirstCars[slot], oldCounts[slot]);
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    cells = new int[capacity];
+    firstCars = new int[capacity];
+    counts = new int[capacity];
+    Arrays.fill(cells, EMPTY);
+  }
+
+  private static int hash(int cell) {
+    int hash = cell * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
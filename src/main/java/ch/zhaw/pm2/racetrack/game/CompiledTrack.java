@@ -0,0 +1,253 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes the compiled binary track format.
+ *
+ * <p>A compiled track holds the same data as a text track file (see {@link Track}), but can be loaded
+ * without parsing or validating the board. All numbers are big-endian, the file is laid out as follows:</p>
+ * <ol>
+ *   <li>the four bytes of {@link #MAGIC} and the format version as unsigned short</li>
+ *   <li>width and height as int</li>
+ *   <li>the number of cars as int, followed by id (char) and row-major start cell index (int) of each car</li>
+ *   <li>the number of finish line spaces as int, followed by their row-major cell indices (int), ascending</li>
+ *   <li>the rows of the board, each encoded as runs of equal spaces: the space type ordinal as byte and the
+ *   length of the run as unsigned LEB128 varint. A run never spans two rows.</li>
+ *   <li>the CRC32 checksum of all preceding bytes as int</li>
+ * </ol>
+ *
+ * <p>The first magic byte is not a valid character of a text track file, so both formats can be told
+ * apart by their content, see {@link #isCompiled(File)}.</p>
+ */
+public final class CompiledTrack {
+  /**
+   * File name extension of compiled tracks.
+   */
+  public static final String FILE_EXTENSION = ".rtk";
+  static final int VERSION = 1;
+  private static final byte[] MAGIC = {(byte) 0x89, 'R', 'T', 'K'};
+  private static final int CHECKSUM_SIZE = Integer.BYTES;
+  private static final int SPACE_TYPE_COUNT = ConfigSpecification.SpaceType.values().length;
+
+  private CompiledTrack() {
+  }
+
+  /**
+   * Checks whether the given file starts with the header of a compiled track.
+   *
+   * @param trackFile the file to examine
+   * @return true if the file is a compiled track, false if it is too short, unreadable or starts otherwise
+   */
+  public static boolean isCompiled(File trackFile) {
+    try (InputStream input = new FileInputStream(trackFile)) {
+      byte[] header = input.readNBytes(MAGIC.length);
+      return Arrays.equals(header, MAGIC);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Writes the given layout in the compiled format.
+   *
+   * @param layout the layout to write
+   * @param target the file to write to, an existing file is overwritten
+   * @throws IOException if the file could not be written
+   */
+  public static void write(TrackLayout layout, File target) throws IOException {
+    CRC32 checksum = new CRC32();
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+         DataOutputStream checked = new DataOutputStream(new CheckedOutputStream(output, checksum))) {
+      checked.write(MAGIC);
+      checked.writeShort(VERSION);
+      checked.writeInt(layout.getWidth());
+      checked.writeInt(layout.getHeight());
+      checked.writeInt(layout.getCarCount());
+      for (int carIndex = 0; carIndex < layout.getCarCount(); carIndex++) {
+        PositionVector start = layout.getStartPosition(carIndex);
+        checked.writeChar(layout.getCarId(carIndex));
+        checked.writeInt(layout.cellIndex(start.getX(), start.getY()));
+      }
+      checked.writeInt(layout.getFinishCellCount());
+      for (int index = 0; index < layout.getFinishCellCount(); index++) {
+        checked.writeInt(layout.getFinishCell(index));
+      }
+      for (int y = 0; y < layout.getHeight(); y++) {
+        writeRow(checked, layout, y);
+      }
+      checked.flush();
+      output.writeInt((int) checksum.getValue());
+    }
+  }
+
+  private static void writeRow(DataOutputStream output, TrackLayout layout, int y) throws IOException {
+    int rowStart = layout.cellIndex(0, y);
+    int x = 0;
+    while (x < layout.getWidth()) {
+      int ordinal = layout.getSpaceTypeOrdinal(rowStart + x);
+      int runEnd = x + 1;
+      while (runEnd < layout.getWidth() && layout.getSpaceTypeOrdinal(rowStart + runEnd) == ordinal) {
+        runEnd++;
+      }
+      output.writeByte(ordinal);
+      writeVarInt(output, runEnd - x);
+      x = runEnd;
+    }
+  }
+
+  private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      output.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    output.writeByte(value);
+  }
+
+  /**
+   * Loads a layout from a compiled track file.
+   * The file is memory-mapped and its checksum verified, the board itself is not validated again.
+   *
+   * @param trackFile Reference to a compiled track file
+   * @return the loaded layout
+   * @throws FileNotFoundException       if the given track file could not be found
+   * @throws InvalidTrackFormatException if the file is not a compiled track of a supported version or is corrupt
+   */
+  public static TrackLayout read(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
+    long startTime = System.nanoTime();
+    try (RandomAccessFile file = new RandomAccessFile(trackFile, "r");
+         FileChannel channel = file.getChannel()) {
+      long fileLength = channel.size();
+      if (fileLength > Integer.MAX_VALUE) {
+        throw new InvalidTrackFormatException("The compiled track exceeds the maximum size of 2 GB.");
+      }
+      if (fileLength < MAGIC.length + Short.BYTES + CHECKSUM_SIZE) {
+        throw new InvalidTrackFormatException("The compiled track is truncated.");
+      }
+      ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+      verifyChecksum(bytes);
+      TrackLayout layout = decode(bytes.limit((int) fileLength - CHECKSUM_SIZE), fileLength, startTime);
+      if (bytes.hasRemaining()) {
+        throw new InvalidTrackFormatException("The compiled track has trailing data.");
+      }
+      return layout;
+    } catch (FileNotFoundException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void verifyChecksum(ByteBuffer bytes) throws InvalidTrackFormatException {
+    int checksumOffset = bytes.limit() - CHECKSUM_SIZE;
+    CRC32 checksum = new CRC32();
+    checksum.update(bytes.duplicate().limit(checksumOffset));
+    if ((int) checksum.getValue() != bytes.getInt(checksumOffset)) {
+      throw new InvalidTrackFormatException("The checksum of the compiled track does not match, the file is corrupt.");
+    }
+  }
+
+  private static TrackLayout decode(ByteBuffer bytes, long fileLength, long startTime)
+          throws InvalidTrackFormatException {
+    try {
+      byte[] magic = new byte[MAGIC.length];
+      bytes.get(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new InvalidTrackFormatException("The file is not a compiled track.");
+      }
+      int version = Short.toUnsignedInt(bytes.getShort());
+      if (version != VERSION) {
+        throw new InvalidTrackFormatException(
+                String.format("The compiled track has version %d, but only version %d is supported.", version, VERSION));
+      }
+      int width = bytes.getInt();
+      int height = bytes.getInt();
+      if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE - 8) {
+        throw new InvalidTrackFormatException(
+                String.format("The compiled track has invalid dimensions %d x %d.", width, height));
+      }
+      int cellCount = width * height;
+      int carCount = readCount(bytes, ConfigSpecification.MAX_CARS);
+      char[] carIds = new char[carCount];
+      int[] carCells = new int[carCount];
+      for (int carIndex = 0; carIndex < carCount; carIndex++) {
+        carIds[carIndex] = bytes.getChar();
+        carCells[carIndex] = readCell(bytes, cellCount);
+      }
+      int[] finishCells = new int[readCount(bytes, cellCount)];
+      for (int index = 0; index < finishCells.length; index++) {
+        finishCells[index] = readCell(bytes, cellCount);
+      }
+      byte[] cells = new byte[cellCount];
+      for (int rowStart = 0; rowStart < cellCount; rowStart += width) {
+        readRow(bytes, cells, rowStart, width);
+      }
+      return new TrackLayout(width, height, cells, carIds, carCells, finishCells,
+              new TrackLoadStatistics(fileLength, cellCount, System.nanoTime() - startTime));
+    } catch (BufferUnderflowException e) {
+      throw new InvalidTrackFormatException("The compiled track is truncated.");
+    }
+  }
+
+  private static void readRow(ByteBuffer bytes, byte[] cells, int rowStart, int width)
+          throws InvalidTrackFormatException {
+    int x = 0;
+    while (x < width) {
+      byte ordinal = bytes.get();
+      int length = readVarInt(bytes);
+      if (ordinal < 0 || ordinal >= SPACE_TYPE_COUNT || length <= 0 || length > width - x) {
+        throw new InvalidTrackFormatException(
+                String.format("The compiled track contains an invalid run in row %d.", rowStart / width + 1));
+      }
+      Arrays.fill(cells, rowStart + x, rowStart + x + length, ordinal);
+      x += length;
+    }
+  }
+
+  private static int readCount(ByteBuffer bytes, int maximum) throws InvalidTrackFormatException {
+    int count = bytes.getInt();
+    if (count < 0 || count > maximum) {
+      throw new InvalidTrackFormatException(String.format("The compiled track contains an invalid count %d.", count));
+    }
+    return count;
+  }
+
+  private static int readCell(ByteBuffer bytes, int cellCount) throws InvalidTrackFormatException {
+    int cell = bytes.getInt();
+    if (cell < 0 || cell >= cellCount) {
+      throw new InvalidTrackFormatException(
+              String.format("The compiled track contains the cell index %d outside of the board.", cell));
+    }
+    return cell;
+  }
+
+  private static int readVarInt(ByteBuffer bytes) throws InvalidTrackFormatException {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      byte current = bytes.get();
+      value |= (current & 0x7f) << shift;
+      if (current >= 0) {
+        return value;
+      }
+    }
+    throw new InvalidTrackFormatException("The compiled track contains a malformed run length.");
+  }
+}
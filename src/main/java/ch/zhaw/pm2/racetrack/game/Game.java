@@ -2,8 +2,8 @@ package ch.zhaw.pm2.racetrack.game;
 
 
 import ch.zhaw.pm2.racetrack.Config;
-import ch.zhaw.pm2.racetrack.exceptions.OutOfBoardException;
 import ch.zhaw.pm2.racetrack.given.GameSpecification;
+import ch.zhaw.pm2.racetrack.strategy.ReservationTable;
 
 import java.util.List;
 
@@ -29,17 +29,20 @@ public class Game implements GameSpecification {
    */
   private int currentCarIndex;
   /**
-   * The {@link Track} that is being played.
+   * Walks the path of the current car, reused for every turn.
    */
-  private final BresenhamAlgorithm bresenham;
+  private final LineWalker pathWalker;
 
+  /**
+   * The {@link Track} that is being played.
+   */
   private Track track;
 
   /**
    * Constructor for the Game class.
    */
   public Game() {
-    bresenham = new BresenhamAlgorithm();
+    pathWalker = new LineWalker();
     this.winner = NO_WINNER;
     this.currentCarIndex = 0;
     this.track = null;
@@ -71,12 +74,13 @@ public class Game implements GameSpecification {
   }
 
   /**
-   * Sets the Track in the Game.
+   * Sets the Track in the Game. A new race starts on it, so the routes booked in the last race are dropped.
    *
    * @param track The track that is used in the game.
    */
   public void setTrack(Track track) {
     this.track = track;
+    ReservationTable.reset(track);
   }
 
   /**
@@ -129,8 +133,8 @@ public class Game implements GameSpecification {
    * <p>The steps are as follows</p>
    * <ol>
    *   <li>Accelerate the current car</li>
-   *   <li>Calculate the path from current (start) to next (end) position
-   *       (see {@link Game#calculatePath(PositionVector, PositionVector)})</li>
+   *   <li>Walk the path from current (start) to next (end) position
+   *       (see {@link Game#calculatePath(PositionVector, PositionVector)} and {@link LineWalker})</li>
    *   <li>Verify for each step what space type it hits:
    *      <ul>
    *          <li>TRACK: check for collision with other car (crashed &amp; don't continue), otherwise do nothing</li>
@@ -142,6 +146,10 @@ public class Game implements GameSpecification {
    *   <li>If the car crashed, also detect if there is only one car remaining, remaining car is the winner</li>
    *   <li>Otherwise move the car to the end position</li>
    * </ol>
+   * <p>A move whose path has no wall or finish line space and passes no other car is executed without
+   * checking the path position by position. The bounding box of the path is checked in constant time with
+   * the {@link SpaceSums}, only if it contains a wall or finish line space the path itself is checked with
+   * the {@link SpaceMask}.</p>
    * <p>The calling method must check the winner state and decide how to go on. If the winner is different
    * than {@link Game#NO_WINNER}, or the current car is already marked as crashed the method returns immediately.</p>
    *
@@ -152,27 +160,58 @@ public class Game implements GameSpecification {
   public void doCarTurn(Direction acceleration) {
     Car car = track.getCar(currentCarIndex);
     car.accelerate(acceleration);
-    List<PositionVector> pathPositions = calculatePath(car.getPosition(), car.nextPosition());
-
-    for (PositionVector pathPosition : pathPositions) {
-      try {
-        if (willCarCrash(currentCarIndex, pathPosition)) {
-          crashCar(car, pathPosition);
-          return;
-        }
-        if (config.isFinishLine(track.getSpaceType(pathPosition))) {
-          setWinner(car, pathPosition);
-          return;
-        }
-      } catch (OutOfBoardException fail) {
-        car.crash();
-        car.setPosition(pathPosition);
+    PositionVector nextPosition = car.nextPosition();
+    if (isPathClear(car.getPosition(), nextPosition)) {
+      car.move();
+      return;
+    }
+    LineWalker path = pathWalker.start(car.getPosition(), nextPosition);
+    while (path.next()) {
+      if (willCarCrash(currentCarIndex, path.getX(), path.getY())) {
+        crashCar(car, new PositionVector(path.getX(), path.getY()));
+        return;
+      }
+      if (config.isFinishLine(track.getSpaceType(path.getX(), path.getY()))) {
+        setWinner(car, new PositionVector(path.getX(), path.getY()));
         return;
       }
     }
     car.move();
   }
 
+  /**
+   * Checks whether the path of the current car has no wall, no finish line space and no other car on it.
+   * Other cars are only compared with the bounding box of the path, so a false result does not mean that
+   * the car crashes.
+   *
+   * @param start start position of the path
+   * @param end   end position of the path
+   * @return true if the car can move to the end position without any further checks
+   */
+  private boolean isPathClear(PositionVector start, PositionVector end) {
+    SpaceSums spaceSums = track.getSpaceSums();
+    SpaceMask spaceMask = track.getSpaceMask();
+    if (spaceSums.hasWallInBoundingBox(start, end) && spaceMask.hasWallOnLine(start, end)) {
+      return false;
+    }
+    if (spaceSums.hasFinishInBoundingBox(start, end) && spaceMask.hasFinishOnLine(start, end)) {
+      return false;
+    }
+    int minX = Math.min(start.getX(), end.getX());
+    int maxX = Math.max(start.getX(), end.getX());
+    int minY = Math.min(start.getY(), end.getY());
+    int maxY = Math.max(start.getY(), end.getY());
+    for (int carIndex = 0; carIndex < track.getCarCount(); carIndex++) {
+      PositionVector position = track.getCarPos(carIndex);
+      if (carIndex != currentCarIndex
+              && position.getX() >= minX && position.getX() <= maxX
+              && position.getY() >= minY && position.getY() <= maxY) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void setWinner(Car car, PositionVector pathPosition) {
     if (calculateRoundCount(track.getSpaceType(pathPosition), car) > 0) {
       winner = currentCarIndex;
@@ -267,7 +306,7 @@ public class Game implements GameSpecification {
    */
   @Override
   public List<PositionVector> calculatePath(PositionVector startPosition, PositionVector endPosition) {
-    return bresenham.calculatePath(startPosition, endPosition);
+    return LineWalker.calculatePath(startPosition, endPosition);
   }
 
   /**
@@ -278,15 +317,12 @@ public class Game implements GameSpecification {
    * @return A boolean indicator if the car would crash with a WALL or another car.
    */
   public boolean willCarCrash(int carIndex, PositionVector position) {
-    Config.SpaceType positionSpaceType;
+    return willCarCrash(carIndex, position.getX(), position.getY());
+  }
 
-    try {
-      positionSpaceType = track.getSpaceType(position);
-    } catch (OutOfBoardException e) {
-      return true;
-    }
-    if (crashesWithSpaceType(carIndex, positionSpaceType)) return true;
-    return track.hasDifferentCarAtPosition(position, track.getCar(carIndex));
+  private boolean willCarCrash(int carIndex, int x, int y) {
+    if (crashesWithSpaceType(carIndex, track.getSpaceType(x, y))) return true;
+    return track.hasDifferentCarAtPosition(x, y, track.getCar(carIndex));
   }
 
   private boolean crashesWithSpaceType(int carIndex, Config.SpaceType positionSpaceType) {
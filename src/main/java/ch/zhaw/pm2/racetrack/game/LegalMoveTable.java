@@ -0,0 +1,181 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
+
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed accelerations which do not crash, for every space of a track and every velocity up to a
+ * maximum speed.
+ *
+ * <p>For each space which is not a wall and each velocity whose components are at most {@link #getMaxSpeed()},
+ * a 9-bit mask holds one bit per {@link PositionVector.Direction}, indexed by its ordinal. A bit is set if the
+ * car, accelerated in that direction, ends on the board and passes no wall. Finish line spaces are not
+ * considered, they are handled by the caller like before.</p>
+ *
+ * <p>Whether a move crashes only depends on the space and the new velocity, so every line is checked once
+ * and shared by the up to nine velocities which can reach it. The rows are built in parallel. A table is
+ * immutable and thread safe, it is kept by its {@link TrackLayout} and shared by all cars.</p>
+ */
+public final class LegalMoveTable {
+  /**
+   * Mask with the bits of all nine accelerations set.
+   */
+  public static final int ALL_MOVES = (1 << PositionVector.Direction.values().length) - 1;
+  /**
+   * Largest number of masks of a table, limited by the length of the array.
+   */
+  public static final long MAX_MASKS = Integer.MAX_VALUE - 8;
+  private static final int NO_SLOT = -1;
+  private static final PositionVector.Direction[] DIRECTIONS = PositionVector.Direction.values();
+
+  private final int width;
+  private final int maxSpeed;
+  /**
+   * Number of velocity components from {@code -maxSpeed} to {@code maxSpeed}.
+   */
+  private final int span;
+  /**
+   * Slot of each row-major cell in {@link #masks}, {@link #NO_SLOT} for walls.
+   */
+  private final int[] slots;
+  /**
+   * Masks indexed by {@code slot * span * span + (velocityY + maxSpeed) * span + velocityX + maxSpeed}.
+   */
+  private final short[] masks;
+
+  private LegalMoveTable(TrackLayout layout, int maxSpeed) {
+    width = layout.getWidth();
+    this.maxSpeed = maxSpeed;
+    span = 2 * maxSpeed + 1;
+    slots = new int[width * layout.getHeight()];
+    int slotCount = 0;
+    int wall = ConfigSpecification.SpaceType.WALL.ordinal();
+    for (int cell = 0; cell < slots.length; cell++) {
+      slots[cell] = layout.getSpaceTypeOrdinal(cell) == wall ? NO_SLOT : slotCount++;
+    }
+    masks = new short[(int) maskCount(slotCount, maxSpeed)];
+  }
+
+  /**
+   * @param layout   the layout
+   * @param maxSpeed largest velocity component covered by the table
+   * @return true if the masks of the table fit into an array, at most {@link #MAX_MASKS}
+   */
+  static boolean fits(TrackLayout layout, int maxSpeed) {
+    long spaces = (long) layout.getWidth() * layout.getHeight();
+    int wall = ConfigSpecification.SpaceType.WALL.ordinal();
+    long openSpaces = 0;
+    for (int cell = 0; cell < spaces; cell++) {
+      if (layout.getSpaceTypeOrdinal(cell) != wall) {
+        openSpaces++;
+      }
+    }
+    return maskCount(openSpaces, maxSpeed) <= MAX_MASKS;
+  }
+
+  private static long maskCount(long openSpaces, int maxSpeed) {
+    long span = 2L * maxSpeed + 1;
+    return openSpaces * span * span;
+  }
+
+  /**
+   * Builds the table of a layout, the rows are computed in parallel on the common pool.
+   *
+   * @param layout   the layout
+   * @param maxSpeed largest velocity component covered by the table
+   * @return the table of the layout
+   * @throws IllegalArgumentException if the maximum speed is negative or the table does not {@link #fits fit}
+   */
+  static LegalMoveTable of(TrackLayout layout, int maxSpeed) {
+    if (maxSpeed < 0) {
+      throw new IllegalArgumentException("The maximum speed must not be negative");
+    }
+    if (!fits(layout, maxSpeed)) {
+      throw new IllegalArgumentException("The board is too large for a legal move table");
+    }
+    LegalMoveTable table = new LegalMoveTable(layout, maxSpeed);
+    SpaceMask spaceMask = layout.getSpaceMask();
+    SpaceSums spaceSums = layout.getSpaceSums();
+    IntStream.range(0, layout.getHeight()).parallel()
+            .forEach(y -> table.fillRow(y, spaceMask, spaceSums));
+    return table;
+  }
+
+  /**
+   * Fills the masks of one row. The lines to all end positions within a speed of {@code maxSpeed + 1} are
+   * checked once per space, then combined into the masks of the velocities.
+   */
+  private void fillRow(int y, SpaceMask spaceMask, SpaceSums spaceSums) {
+    int reach = maxSpeed + 1;
+    int reachSpan = 2 * reach + 1;
+    boolean[] clear = new boolean[reachSpan * reachSpan];
+    for (int x = 0; x < width; x++) {
+      int slot = slots[y * width + x];
+      if (slot == NO_SLOT) {
+        continue;
+      }
+      PositionVector start = new PositionVector(x, y);
+      for (int velocityY = -reach; velocityY <= reach; velocityY++) {
+        for (int velocityX = -reach; velocityX <= reach; velocityX++) {
+          PositionVector end = new PositionVector(x + velocityX, y + velocityY);
+          clear[(velocityY + reach) * reachSpan + velocityX + reach] = !spaceSums.hasWallInBoundingBox(start, end)
+                  || !spaceMask.hasWallOnLine(start, end);
+        }
+      }
+      for (int velocityY = -maxSpeed; velocityY <= maxSpeed; velocityY++) {
+        for (int velocityX = -maxSpeed; velocityX <= maxSpeed; velocityX++) {
+          int mask = 0;
+          for (PositionVector.Direction direction : DIRECTIONS) {
+            int endX = velocityX + direction.vector.getX() + reach;
+            int endY = velocityY + direction.vector.getY() + reach;
+            if (clear[endY * reachSpan + endX]) {
+              mask |= 1 << direction.ordinal();
+            }
+          }
+          masks[index(slot, velocityX, velocityY)] = (short) mask;
+        }
+      }
+    }
+  }
+
+  private int index(int slot, int velocityX, int velocityY) {
+    return slot * span * span + (velocityY + maxSpeed) * span + velocityX + maxSpeed;
+  }
+
+  /**
+   * @return largest velocity component covered by the table
+   */
+  public int getMaxSpeed() {
+    return maxSpeed;
+  }
+
+  /**
+   * @param velocityX horizontal velocity
+   * @param velocityY vertical velocity
+   * @return true if the table holds the masks of the velocity
+   */
+  public boolean covers(int velocityX, int velocityY) {
+    return Math.abs(velocityX) <= maxSpeed && Math.abs(velocityY) <= maxSpeed;
+  }
+
+  /**
+   * Returns the accelerations of a car which do not crash.
+   *
+   * @param x         column of the car, on the board and not a wall
+   * @param y         row of the car, on the board and not a wall
+   * @param velocityX horizontal velocity of the car, see {@link #covers(int, int)}
+   * @param velocityY vertical velocity of the car, see {@link #covers(int, int)}
+   * @return mask with bit {@code direction.ordinal()} set for each direction which does not crash
+   */
+  public int getLegalMoves(int x, int y, int velocityX, int velocityY) {
+    return masks[index(slots[y * width + x], velocityX, velocityY)];
+  }
+
+  /**
+   * @return number of bytes taken by the masks
+   */
+  public long getSizeInBytes() {
+    return (long) masks.length * Short.BYTES;
+  }
+}
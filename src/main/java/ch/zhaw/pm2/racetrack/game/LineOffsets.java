@@ -0,0 +1,69 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Process-wide cache of the positions of Bresenham lines relative to their start position.
+ *
+ * <p>The positions of a line only depend on the difference (dx, dy) between its end and start position,
+ * so one sequence of offsets serves every line with the same difference. Sequences are computed on first
+ * use and kept for all differences up to {@link #MAX_DELTA} on both axes, which covers every speed
+ * reachable on a track of realistic size. Each offset is packed into one int, see {@link #pack(int, int)}.
+ * The cache is thread safe, the returned arrays are shared and must not be modified.</p>
+ */
+final class LineOffsets {
+  /**
+   * Largest absolute difference per axis that is cached.
+   */
+  static final int MAX_DELTA = 64;
+  private static final int SIDE = 2 * MAX_DELTA + 1;
+  private static final AtomicReferenceArray<int[]> OFFSETS = new AtomicReferenceArray<>(SIDE * SIDE);
+
+  private LineOffsets() {
+  }
+
+  /**
+   * Returns the offsets of the line from (0, 0) to (dx, dy), including both ends.
+   *
+   * @param dx difference of the end and start column
+   * @param dy difference of the end and start row
+   * @return the packed offsets, or null if the difference exceeds {@link #MAX_DELTA}
+   */
+  static int[] get(int dx, int dy) {
+    if (Math.abs(dx) > MAX_DELTA || Math.abs(dy) > MAX_DELTA) {
+      return null;
+    }
+    int key = (dy + MAX_DELTA) * SIDE + dx + MAX_DELTA;
+    int[] offsets = OFFSETS.get(key);
+    if (offsets == null) {
+      offsets = compute(dx, dy);
+      OFFSETS.set(key, offsets);
+    }
+    return offsets;
+  }
+
+  private static int[] compute(int dx, int dy) {
+    LineWalker line = new LineWalker().startUncached(0, 0, dx, dy);
+    int[] offsets = new int[Math.max(Math.abs(dx), Math.abs(dy)) + 1];
+    int index = 0;
+    while (line.next()) {
+      offsets[index++] = pack(line.getX(), line.getY());
+    }
+    return offsets;
+  }
+
+  /**
+   * Packs an offset into one int: the column in the upper, the row in the lower 16 bits.
+   */
+  static int pack(int offsetX, int offsetY) {
+    return offsetX << 16 | (offsetY & 0xffff);
+  }
+
+  static int offsetX(int packed) {
+    return packed >> 16;
+  }
+
+  static int offsetY(int packed) {
+    return (short) packed;
+  }
+}
@@ -0,0 +1,240 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cursor over the grid positions on the line between two positions, determined with Bresenham's line
+ * algorithm (https://de.wikipedia.org/wiki/Bresenham-Algorithmus).
+ * Basic steps are
+ * - Detect which axis of the distance vector is longer (faster movement)
+ * - for each position on the 'faster' axis calculate the position on the 'slower' axis.
+ *
+ * <p>A walker is reusable: {@link #start(int, int, int, int)} resets it to a new line, after which the
+ * positions are visited one at a time with {@link #next()}, or one row segment at a time with
+ * {@link #nextRun()}. Walking a line allocates nothing, the caller can stop at any position.
+ * Lines up to a length of {@link LineOffsets#MAX_DELTA} per axis are read from the shared
+ * {@link LineOffsets} cache instead of being computed again. A walker is not thread safe.</p>
+ *
+ * <pre>{@code
+ * LineWalker line = walker.start(start, end);
+ * while (line.next()) {
+ *   if (isBlocked(line.getX(), line.getY())) {
+ *     ...
+ *   }
+ * }
+ * }</pre>
+ */
+public final class LineWalker {
+  private int startX;
+  private int startY;
+  private int x;
+  private int y;
+  /**
+   * Cached offsets of the current line, null if the line is computed step by step.
+   */
+  private int[] offsets;
+  private int offsetIndex;
+  private int directionX;
+  private int directionY;
+  private boolean isXAxisTheFastDirection;
+  private int distanceFastAxis;
+  private int distanceSlowAxis;
+  private int error;
+  private int remainingSteps;
+  private boolean started;
+  private int runStartX;
+
+  /**
+   * Visitor of the positions of a line, see {@link #walk(int, int, int, int, PositionVisitor)}.
+   */
+  @FunctionalInterface
+  public interface PositionVisitor {
+    /**
+     * @param x column of the position
+     * @param y row of the position
+     * @return true to stop walking the line
+     */
+    boolean visit(int x, int y);
+  }
+
+  /**
+   * Resets the walker to the line from the start to the end position.
+   *
+   * @param startX column of the start position
+   * @param startY row of the start position
+   * @param endX   column of the end position
+   * @param endY   row of the end position
+   * @return this walker, positioned before the start position
+   */
+  public LineWalker start(int startX, int startY, int endX, int endY) {
+    offsets = LineOffsets.get(endX - startX, endY - startY);
+    if (offsets == null) {
+      return startUncached(startX, startY, endX, endY);
+    }
+    this.startX = startX;
+    this.startY = startY;
+    x = startX;
+    y = startY;
+    offsetIndex = -1;
+    return this;
+  }
+
+  /**
+   * Resets the walker to the line from the start to the end position, which is computed step by step
+   * with the error term of Bresenham's algorithm.
+   */
+  LineWalker startUncached(int startX, int startY, int endX, int endY) {
+    offsets = null;
+    int distanceX = Math.abs(endX - startX);
+    int distanceY = Math.abs(endY - startY);
+    x = startX;
+    y = startY;
+    directionX = Integer.signum(endX - startX);
+    directionY = Integer.signum(endY - startY);
+    isXAxisTheFastDirection = distanceX > distanceY;
+    distanceFastAxis = isXAxisTheFastDirection ? distanceX : distanceY;
+    distanceSlowAxis = isXAxisTheFastDirection ? distanceY : distanceX;
+    error = distanceFastAxis / 2;
+    remainingSteps = distanceFastAxis;
+    started = false;
+    return this;
+  }
+
+  /**
+   * Resets the walker to the line from the start to the end position.
+   *
+   * @param startPosition Starting position as a PositionVector
+   * @param endPosition   Ending position as a PositionVector
+   * @return this walker, positioned before the start position
+   */
+  public LineWalker start(PositionVector startPosition, PositionVector endPosition) {
+    return start(startPosition.getX(), startPosition.getY(), endPosition.getX(), endPosition.getY());
+  }
+
+  /**
+   * Advances to the next position of the line, the first call moves to the start position.
+   *
+   * @return true if the walker moved, false if the end position has already been visited
+   */
+  public boolean next() {
+    if (offsets != null) {
+      if (offsetIndex == offsets.length - 1) {
+        return false;
+      }
+      int offset = offsets[++offsetIndex];
+      x = startX + LineOffsets.offsetX(offset);
+      y = startY + LineOffsets.offsetY(offset);
+      return true;
+    }
+    if (!started) {
+      started = true;
+      return true;
+    }
+    if (remainingSteps == 0) {
+      return false;
+    }
+    remainingSteps--;
+    error -= distanceSlowAxis;
+    if (error < 0) {
+      error += distanceFastAxis;
+      x += directionX;
+      y += directionY;
+    } else if (isXAxisTheFastDirection) {
+      x += directionX;
+    } else {
+      y += directionY;
+    }
+    return true;
+  }
+
+  /**
+   * Advances over all following positions of the line which lie in the same row. The row segment covers the
+   * columns {@link #getRunMinX()} to {@link #getRunMaxX()} of row {@link #getY()}, the walker stands on its
+   * last position.
+   *
+   * @return true if the walker moved, false if the end position has already been visited
+   */
+  public boolean nextRun() {
+    if (!next()) {
+      return false;
+    }
+    runStartX = x;
+    while (nextStaysInRow()) {
+      next();
+    }
+    return true;
+  }
+
+  private boolean nextStaysInRow() {
+    if (offsets != null) {
+      return offsetIndex < offsets.length - 1 && startY + LineOffsets.offsetY(offsets[offsetIndex + 1]) == y;
+    }
+    return remainingSteps > 0 && isXAxisTheFastDirection && error >= distanceSlowAxis;
+  }
+
+  /**
+   * @return column of the current position
+   */
+  public int getX() {
+    return x;
+  }
+
+  /**
+   * @return row of the current position
+   */
+  public int getY() {
+    return y;
+  }
+
+  /**
+   * @return first column of the row segment of the last {@link #nextRun()}
+   */
+  public int getRunMinX() {
+    return Math.min(runStartX, x);
+  }
+
+  /**
+   * @return last column of the row segment of the last {@link #nextRun()}
+   */
+  public int getRunMaxX() {
+    return Math.max(runStartX, x);
+  }
+
+  /**
+   * Visits the positions of a line in order until the visitor asks to stop.
+   *
+   * @param startX  column of the start position
+   * @param startY  row of the start position
+   * @param endX    column of the end position
+   * @param endY    row of the end position
+   * @param visitor called for each position, including the start and end position
+   * @return true if the visitor stopped the walk, false if all positions were visited
+   */
+  public static boolean walk(int startX, int startY, int endX, int endY, PositionVisitor visitor) {
+    LineWalker line = new LineWalker().start(startX, startY, endX, endY);
+    while (line.next()) {
+      if (visitor.visit(line.x, line.y)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns all of the grid positions in the path between two positions, for use in determining line of sight.
+   *
+   * @param startPosition Starting position as a PositionVector
+   * @param endPosition   Ending position as a PositionVector
+   * @return Intervening grid positions as a List of PositionVector's, including the starting and ending positions.
+   */
+  public static List<PositionVector> calculatePath(PositionVector startPosition, PositionVector endPosition) {
+    List<PositionVector> path = new ArrayList<>(
+            Math.max(Math.abs(endPosition.getX() - startPosition.getX()), Math.abs(endPosition.getY() - startPosition.getY())) + 1);
+    LineWalker line = new LineWalker().start(startPosition, endPosition);
+    while (line.next()) {
+      path.add(new PositionVector(line.x, line.y));
+    }
+    return path;
+  }
+}
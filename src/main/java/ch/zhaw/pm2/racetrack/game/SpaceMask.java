@@ -0,0 +1,275 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
+
+/**
+ * Bitset view of the walls and finish line spaces of a track.
+ *
+ * <p>Every row of the board is stored as a sequence of {@code long} words, one bit per space, so a query
+ * over a row segment tests up to 64 spaces with a single word operation instead of looking up one
+ * {@link ConfigSpecification.SpaceType} per space. There is one bitset for the walls, one for each finish line
+ * direction and one for the finish line spaces of any direction.</p>
+ *
+ * <p>Spaces outside of the board are considered walls, but never finish line spaces. A mask is immutable
+ * and thread safe.</p>
+ */
+public final class SpaceMask {
+  private static final int WORD_SHIFT = 6;
+  private static final long ALL_BITS = -1L;
+  private static final ConfigSpecification.SpaceType[] SPACE_TYPES = ConfigSpecification.SpaceType.values();
+
+  private final int width;
+  private final int height;
+  private final int wordsPerRow;
+  private final long[] walls;
+  private final long[] finishes;
+  /**
+   * Finish line spaces per direction, indexed by {@link ConfigSpecification.SpaceType} ordinal.
+   */
+  private final long[][] finishesByType = new long[SPACE_TYPES.length][];
+
+  private SpaceMask(int width, int height) {
+    this.width = width;
+    this.height = height;
+    wordsPerRow = (width + Long.SIZE - 1) >>> WORD_SHIFT;
+    walls = new long[wordsPerRow * height];
+    finishes = new long[wordsPerRow * height];
+    for (ConfigSpecification.SpaceType spaceType : SPACE_TYPES) {
+      if (isFinish(spaceType)) {
+        finishesByType[spaceType.ordinal()] = new long[wordsPerRow * height];
+      }
+    }
+  }
+
+  /**
+   * Builds the mask of a layout.
+   *
+   * @param layout the layout
+   * @return the mask of its walls and finish line spaces
+   */
+  static SpaceMask of(TrackLayout layout) {
+    SpaceMask mask = new SpaceMask(layout.getWidth(), layout.getHeight());
+    for (int y = 0; y < layout.getHeight(); y++) {
+      int rowStart = layout.cellIndex(0, y);
+      for (int x = 0; x < layout.getWidth(); x++) {
+        mask.set(x, y, SPACE_TYPES[layout.getSpaceTypeOrdinal(rowStart + x)]);
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Builds the mask of a grid as returned by {@link Track#getGrid()}.
+   *
+   * @param grid the board indexed [x][y]
+   * @return the mask of its walls and finish line spaces
+   */
+  public static SpaceMask of(ConfigSpecification.SpaceType[][] grid) {
+    SpaceMask mask = new SpaceMask(grid.length, grid[0].length);
+    for (int x = 0; x < grid.length; x++) {
+      for (int y = 0; y < grid[x].length; y++) {
+        mask.set(x, y, grid[x][y]);
+      }
+    }
+    return mask;
+  }
+
+  private void set(int x, int y, ConfigSpecification.SpaceType spaceType) {
+    int word = y * wordsPerRow + (x >>> WORD_SHIFT);
+    long bit = 1L << x;
+    if (spaceType == ConfigSpecification.SpaceType.WALL) {
+      walls[word] |= bit;
+    } else if (isFinish(spaceType)) {
+      finishes[word] |= bit;
+      finishesByType[spaceType.ordinal()][word] |= bit;
+    }
+  }
+
+  private static boolean isFinish(ConfigSpecification.SpaceType spaceType) {
+    return spaceType != ConfigSpecification.SpaceType.WALL && spaceType != ConfigSpecification.SpaceType.TRACK;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * @param x Position in the grid
+   * @param y Position in the grid
+   * @return true if the space is a wall or outside of the board
+   */
+  public boolean isWall(int x, int y) {
+    return !isInside(x, y) || (walls[y * wordsPerRow + (x >>> WORD_SHIFT)] & (1L << x)) != 0;
+  }
+
+  /**
+   * Checks a segment of a row for walls.
+   *
+   * @param y     row of the segment
+   * @param fromX first column of the segment
+   * @param toX   last column of the segment, inclusive; the columns may be given in either order
+   * @return true if the segment contains a wall or leaves the board
+   */
+  public boolean hasWallInRow(int y, int fromX, int toX) {
+    return hasWallInRectangle(fromX, y, toX, y);
+  }
+
+  /**
+   * Checks a rectangle for walls.
+   *
+   * @param x1 column of one corner
+   * @param y1 row of one corner
+   * @param x2 column of the opposite corner
+   * @param y2 row of the opposite corner
+   * @return true if the rectangle, including its border, contains a wall or leaves the board
+   */
+  public boolean hasWallInRectangle(int x1, int y1, int x2, int y2) {
+    int minX = Math.min(x1, x2);
+    int maxX = Math.max(x1, x2);
+    int minY = Math.min(y1, y2);
+    int maxY = Math.max(y1, y2);
+    if (!isInside(minX, minY) || !isInside(maxX, maxY)) {
+      return true;
+    }
+    return intersectsRectangle(walls, minX, minY, maxX, maxY);
+  }
+
+  /**
+   * Checks a rectangle for finish line spaces of any direction.
+   *
+   * @param x1 column of one corner
+   * @param y1 row of one corner
+   * @param x2 column of the opposite corner
+   * @param y2 row of the opposite corner
+   * @return true if the part of the rectangle on the board, including its border, contains a finish line space
+   */
+  public boolean hasFinishInRectangle(int x1, int y1, int x2, int y2) {
+    return intersectsClippedRectangle(finishes, x1, y1, x2, y2);
+  }
+
+  /**
+   * Checks a rectangle for finish line spaces of the given direction.
+   *
+   * @param finishType one of the FINISH_* space types
+   * @param x1         column of one corner
+   * @param y1         row of one corner
+   * @param x2         column of the opposite corner
+   * @param y2         row of the opposite corner
+   * @return true if the part of the rectangle on the board, including its border, contains a finish line space
+   * of the given type
+   * @throws IllegalArgumentException if the space type is not a finish line type
+   */
+  public boolean hasFinishInRectangle(ConfigSpecification.SpaceType finishType, int x1, int y1, int x2, int y2) {
+    return intersectsClippedRectangle(finishBits(finishType), x1, y1, x2, y2);
+  }
+
+  /**
+   * Checks the spaces a car passes between two positions for walls. The spaces are the ones visited by
+   * {@link LineWalker}, each row of the path is tested as one segment.
+   *
+   * @param start start position of the path
+   * @param end   end position of the path
+   * @return true if the path contains a wall or leaves the board
+   */
+  public boolean hasWallOnLine(PositionVector start, PositionVector end) {
+    if (!isInside(start.getX(), start.getY()) || !isInside(end.getX(), end.getY())) {
+      return true;
+    }
+    return intersectsLine(walls, start, end);
+  }
+
+  /**
+   * Checks the spaces a car passes between two positions for finish line spaces of any direction.
+   *
+   * @param start start position of the path, on the board
+   * @param end   end position of the path, on the board
+   * @return true if the path contains a finish line space
+   * @see #hasWallOnLine(PositionVector, PositionVector)
+   */
+  public boolean hasFinishOnLine(PositionVector start, PositionVector end) {
+    return intersectsLine(finishes, start, end);
+  }
+
+  /**
+   * Checks the spaces a car passes between two positions for finish line spaces of the given direction.
+   *
+   * @param finishType one of the FINISH_* space types
+   * @param start      start position of the path, on the board
+   * @param end        end position of the path, on the board
+   * @return true if the path contains a finish line space of the given type
+   * @throws IllegalArgumentException if the space type is not a finish line type
+   * @see #hasWallOnLine(PositionVector, PositionVector)
+   */
+  public boolean hasFinishOnLine(ConfigSpecification.SpaceType finishType, PositionVector start, PositionVector end) {
+    return intersectsLine(finishBits(finishType), start, end);
+  }
+
+  private long[] finishBits(ConfigSpecification.SpaceType finishType) {
+    long[] bits = finishesByType[finishType.ordinal()];
+    if (bits == null) {
+      throw new IllegalArgumentException(finishType + " is not a finish line space type");
+    }
+    return bits;
+  }
+
+  private boolean isInside(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  private boolean intersectsClippedRectangle(long[] bits, int x1, int y1, int x2, int y2) {
+    int minX = Math.max(0, Math.min(x1, x2));
+    int maxX = Math.min(width - 1, Math.max(x1, x2));
+    int minY = Math.max(0, Math.min(y1, y2));
+    int maxY = Math.min(height - 1, Math.max(y1, y2));
+    return minX <= maxX && minY <= maxY && intersectsRectangle(bits, minX, minY, maxX, maxY);
+  }
+
+  private boolean intersectsRectangle(long[] bits, int minX, int minY, int maxX, int maxY) {
+    for (int y = minY; y <= maxY; y++) {
+      if (intersectsRow(bits, y, minX, maxX)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tests the columns minX to maxX (inclusive, on the board) of a row, one word at a time.
+   */
+  private boolean intersectsRow(long[] bits, int y, int minX, int maxX) {
+    int rowStart = y * wordsPerRow;
+    int firstWord = minX >>> WORD_SHIFT;
+    int lastWord = maxX >>> WORD_SHIFT;
+    long firstMask = ALL_BITS << minX;
+    long lastMask = ALL_BITS >>> (Long.SIZE - 1 - (maxX & (Long.SIZE - 1)));
+    if (firstWord == lastWord) {
+      return (bits[rowStart + firstWord] & firstMask & lastMask) != 0;
+    }
+    if ((bits[rowStart + firstWord] & firstMask) != 0) {
+      return true;
+    }
+    for (int word = firstWord + 1; word < lastWord; word++) {
+      if (bits[rowStart + word] != 0) {
+        return true;
+      }
+    }
+    return (bits[rowStart + lastWord] & lastMask) != 0;
+  }
+
+  /**
+   * Tests the path of {@link LineWalker} row segment by row segment. Both positions must be on the board.
+   */
+  private boolean intersectsLine(long[] bits, PositionVector start, PositionVector end) {
+    LineWalker line = new LineWalker().start(start, end);
+    while (line.nextRun()) {
+      if (intersectsRow(bits, line.getY(), line.getRunMinX(), line.getRunMaxX())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,171 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
+
+/**
+ * Summed-area tables of the walls and finish line spaces of a track.
+ *
+ * <p>Each table holds, for every position, the number of walls (or finish line spaces) in the rectangle
+ * between the top left corner of the board and that position. The number within any rectangle is then
+ * given by four table lookups, independent of the size of the rectangle. This allows to accept a move
+ * in constant time if the bounding box of its path is free of walls.</p>
+ *
+ * <p>Spaces outside of the board are considered walls, but never finish line spaces. The tables are
+ * immutable and thread safe.</p>
+ */
+public final class SpaceSums {
+  private final int width;
+  private final int height;
+  /**
+   * Row stride of the tables, which have an extra leading row and column of zeros.
+   */
+  private final int stride;
+  private final int[] walls;
+  private final int[] finishes;
+
+  private SpaceSums(int width, int height) {
+    this.width = width;
+    this.height = height;
+    stride = width + 1;
+    walls = new int[stride * (height + 1)];
+    finishes = new int[stride * (height + 1)];
+  }
+
+  /**
+   * Builds the tables of a layout.
+   *
+   * @param layout the layout
+   * @return the summed-area tables of its walls and finish line spaces
+   */
+  static SpaceSums of(TrackLayout layout) {
+    SpaceSums sums = new SpaceSums(layout.getWidth(), layout.getHeight());
+    for (int y = 0; y < layout.getHeight(); y++) {
+      int rowStart = layout.cellIndex(0, y);
+      int wallsInRow = 0;
+      int finishesInRow = 0;
+      for (int x = 0; x < layout.getWidth(); x++) {
+        ConfigSpecification.SpaceType spaceType = TrackLayout.spaceTypeOf(layout.getSpaceTypeOrdinal(rowStart + x));
+        wallsInRow += isWall(spaceType);
+        finishesInRow += isFinish(spaceType);
+        sums.add(x, y, wallsInRow, finishesInRow);
+      }
+    }
+    return sums;
+  }
+
+  /**
+   * Builds the tables of a grid as returned by {@link Track#getGrid()}.
+   *
+   * @param grid the board indexed [x][y]
+   * @return the summed-area tables of its walls and finish line spaces
+   */
+  public static SpaceSums of(ConfigSpecification.SpaceType[][] grid) {
+    SpaceSums sums = new SpaceSums(grid.length, grid[0].length);
+    for (int y = 0; y < sums.height; y++) {
+      int wallsInRow = 0;
+      int finishesInRow = 0;
+      for (int x = 0; x < sums.width; x++) {
+        wallsInRow += isWall(grid[x][y]);
+        finishesInRow += isFinish(grid[x][y]);
+        sums.add(x, y, wallsInRow, finishesInRow);
+      }
+    }
+    return sums;
+  }
+
+  /**
+   * Sets the table entries of a position from the sums of its row up to the position and the entry above.
+   */
+  private void add(int x, int y, int wallsInRow, int finishesInRow) {
+    int index = (y + 1) * stride + x + 1;
+    walls[index] = walls[index - stride] + wallsInRow;
+    finishes[index] = finishes[index - stride] + finishesInRow;
+  }
+
+  private static int isWall(ConfigSpecification.SpaceType spaceType) {
+    return spaceType == ConfigSpecification.SpaceType.WALL ? 1 : 0;
+  }
+
+  private static int isFinish(ConfigSpecification.SpaceType spaceType) {
+    return spaceType != ConfigSpecification.SpaceType.WALL && spaceType != ConfigSpecification.SpaceType.TRACK ? 1 : 0;
+  }
+
+  /**
+   * Checks a rectangle for walls in constant time.
+   *
+   * @param x1 column of one corner
+   * @param y1 row of one corner
+   * @param x2 column of the opposite corner
+   * @param y2 row of the opposite corner
+   * @return true if the rectangle, including its border, contains a wall or leaves the board
+   */
+  public boolean hasWallInRectangle(int x1, int y1, int x2, int y2) {
+    int minX = Math.min(x1, x2);
+    int maxX = Math.max(x1, x2);
+    int minY = Math.min(y1, y2);
+    int maxY = Math.max(y1, y2);
+    if (minX < 0 || minY < 0 || maxX >= width || maxY >= height) {
+      return true;
+    }
+    return sum(walls, minX, minY, maxX, maxY) != 0;
+  }
+
+  /**
+   * Checks the bounding box of a path for walls in constant time.
+   *
+   * @param start start position of the path
+   * @param end   end position of the path
+   * @return true if the bounding box contains a wall or leaves the board; if false, the path does not
+   * contain a wall either
+   */
+  public boolean hasWallInBoundingBox(PositionVector start, PositionVector end) {
+    return hasWallInRectangle(start.getX(), start.getY(), end.getX(), end.getY());
+  }
+
+  /**
+   * Checks a rectangle for finish line spaces of any direction in constant time.
+   *
+   * @param x1 column of one corner
+   * @param y1 row of one corner
+   * @param x2 column of the opposite corner
+   * @param y2 row of the opposite corner
+   * @return true if the part of the rectangle on the board, including its border, contains a finish line space
+   */
+  public boolean hasFinishInRectangle(int x1, int y1, int x2, int y2) {
+    int minX = Math.max(0, Math.min(x1, x2));
+    int maxX = Math.min(width - 1, Math.max(x1, x2));
+    int minY = Math.max(0, Math.min(y1, y2));
+    int maxY = Math.min(height - 1, Math.max(y1, y2));
+    return minX <= maxX && minY <= maxY && sum(finishes, minX, minY, maxX, maxY) != 0;
+  }
+
+  /**
+   * Checks the bounding box of a path for finish line spaces of any direction in constant time.
+   *
+   * @param start start position of the path
+   * @param end   end position of the path
+   * @return true if the bounding box contains a finish line space; if false, the path does not contain one either
+   */
+  public boolean hasFinishInBoundingBox(PositionVector start, PositionVector end) {
+    return hasFinishInRectangle(start.getX(), start.getY(), end.getX(), end.getY());
+  }
+
+  /**
+   * Counts the walls within a rectangle on the board.
+   *
+   * @param minX first column
+   * @param minY first row
+   * @param maxX last column, inclusive
+   * @param maxY last row, inclusive
+   * @return the number of walls in the rectangle
+   */
+  public int countWalls(int minX, int minY, int maxX, int maxY) {
+    return sum(walls, minX, minY, maxX, maxY);
+  }
+
+  private int sum(int[] table, int minX, int minY, int maxX, int maxY) {
+    int top = minY * stride;
+    int bottom = (maxY + 1) * stride;
+    return table[bottom + maxX + 1] - table[bottom + minX] - table[top + maxX + 1] + table[top + minX];
+  }
+}
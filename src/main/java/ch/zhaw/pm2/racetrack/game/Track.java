@@ -9,7 +9,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 
 
@@ -58,13 +57,29 @@ import java.util.Scanner;
  * </ul>
  *
  * <p>The Track can return a String representing the current state of the race (including car positons)</p>
+ *
+ * <p>The board, its dimensions and the start positions are held by an immutable {@link TrackLayout}, which can
+ * be shared by the tracks of several games. The track itself holds the state of one race, i.e. the cars.</p>
  */
 public class Track implements TrackSpecification {
   public static final char CRASH_INDICATOR = 'X';
-  private int width;
-  private int height;
-  private ConfigSpecification.SpaceType[][] grid;
-  private List<Car> cars = new ArrayList<>();
+  private final TrackLayout layout;
+  private final int width;
+  private final int height;
+  private final List<Car> cars = new ArrayList<>();
+  /**
+   * Index of the spaces occupied by cars, kept up to date by the cars themselves.
+   */
+  private final CarOccupancy occupancy = new CarOccupancy();
+  /**
+   * The board rendered with the cars of the last call of {@link #toString()}.
+   */
+  private char[] frame;
+  /**
+   * Offsets in {@link #frame} which were overwritten by cars, {@link #overlaidCount} of them are in use.
+   */
+  private int[] overlaidOffsets;
+  private int overlaidCount;
 
   /**
    * Initialize a Track from the given track file.
@@ -74,126 +89,144 @@ public class Track implements TrackSpecification {
    * @throws InvalidTrackFormatException if the track file contains invalid data (no tracklines, ...)
    */
   public Track(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
-    grid = determineDimensions(trackFile);
-    fillGridAndCars(trackFile);
+    this(TrackLayout.load(trackFile));
+  }
+
+  /**
+   * Initialize a Track for a new race on the given layout. Every car is placed on its start position.
+   *
+   * @param layout the layout of the track, which may be shared with other tracks
+   */
+  public Track(TrackLayout layout) {
+    this.layout = layout;
+    this.width = layout.getWidth();
+    this.height = layout.getHeight();
+    for (int carIndex = 0; carIndex < layout.getCarCount(); carIndex++) {
+      addCar(new Car(layout.getCarId(carIndex), layout.getStartPosition(carIndex)));
+    }
   }
 
   /**
-   * this method fills the grid of SpaceTypes.
-   * Converts chars from file to corresponding SpaceTypes,
-   * or sets the Track SpaceType if the char has no corresponding spaceType,
-   * This method also fills the cars ArrayList
+   * Initialize a Track by memory-mapping the given track file, see {@link TrackLayout#map(File)}.
    *
    * @param trackFile Reference to a file containing the track data
+   * @return the loaded track
    * @throws FileNotFoundException       if the given track file could not be found
-   * @throws InvalidTrackFormatException if the track file contains invalid data
+   * @throws InvalidTrackFormatException if the track file contains invalid data or non-ASCII characters
    */
-  private void fillGridAndCars(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
-    Scanner scanner = new Scanner(trackFile);
-    for (int y = 0; y < height; y++) {
-      String line = scanner.nextLine();
-      for (int x = 0; x < width; x++) {
-        setGridAtPosition(x, y, line);
-      }
+  public static Track fromMappedFile(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
+    return new Track(TrackLayout.map(trackFile));
+  }
+
+  private void addCar(Car car) {
+    int carIndex = cars.size();
+    cars.add(car);
+    car.placeOn(this, carIndex);
+    if (positionIsInGrid(car.getPosition())) {
+      occupancy.add(cellIndex(car.getPosition().getX(), car.getPosition().getY()), carIndex);
     }
-    scanner.close();
+  }
 
-    if (cars.size() > ConfigSpecification.MAX_CARS) {
-      throw new InvalidTrackFormatException(
-              String.format("There are more than %d (maximum) cars on the track.", ConfigSpecification.MAX_CARS));
+  /**
+   * Updates the occupancy index after a car changed its position.
+   *
+   * @param carIndex         the index of the car
+   * @param previousPosition the position the car left
+   * @param position         the position the car moved to
+   */
+  void carMoved(int carIndex, PositionVector previousPosition, PositionVector position) {
+    if (positionIsInGrid(previousPosition)) {
+      int cell = cellIndex(previousPosition.getX(), previousPosition.getY());
+      if (occupancy.remove(cell, carIndex)) {
+        occupancy.setFirstCar(cell, findFirstCarAt(previousPosition));
+      }
+    }
+    if (positionIsInGrid(position)) {
+      occupancy.add(cellIndex(position.getX(), position.getY()), carIndex);
     }
-    if (cars.size() == 0) {
-      throw new InvalidTrackFormatException("There are no cars on the Track.");
+  }
+
+  private int findFirstCarAt(PositionVector position) {
+    for (int carIndex = 0; carIndex < cars.size(); carIndex++) {
+      if (cars.get(carIndex).getPosition().equals(position)) {
+        return carIndex;
+      }
     }
+    return CarOccupancy.NO_CAR;
   }
 
   /**
-   * Sets one SpaceType element in the spaceType grid at given position
-   * @param x Position in the grid
-   * @param y Position in the grid
-   * @param line String representing one line of the raceTrack
-   * @throws InvalidTrackFormatException
+   * @return the layout of this track
    */
-  private void setGridAtPosition(int x, int y, String line) throws InvalidTrackFormatException {
-    char character = line.charAt(x);
-    ConfigSpecification.SpaceType spaceType = ConfigSpecification.SpaceType.fromChar(character);
-    if (spaceType == ConfigSpecification.SpaceType.TRACK && character != ' ') {
-      checkIfCarHasCrashIndicatorAsId(y, x, character);
-      addCar(x, y, character);
-    }
-    grid[x][y] = spaceType;
+  public TrackLayout getLayout() {
+    return layout;
   }
 
   /**
-   * @throws InvalidTrackFormatException if a car has the same id as the crash indicator
+   * Return the type of space at the given position.
+   * If the location is outside the track bounds, it is considered a wall.
+   *
+   * @param position The coordinates of the position to examine
+   * @return The type of track position at the given location
    */
-  private void checkIfCarHasCrashIndicatorAsId(int y, int x, char character) throws InvalidTrackFormatException {
-    if (carHasCrashIndicatorAsId(character)) {
-      throw new InvalidTrackFormatException(
-              String.format("Car at X: %d, Y: %d has the Crash-Indicator (%s) as index", x, y, CRASH_INDICATOR));
-    }
+  @Override
+  public ConfigSpecification.SpaceType getSpaceType(PositionVector position) {
+    return layout.getSpaceType(position.getX(), position.getY());
   }
 
-  private boolean carHasCrashIndicatorAsId(char carId) {
-    return carId == CRASH_INDICATOR;
+  /**
+   * Return the type of space at the given coordinates.
+   * If the location is outside the track bounds, it is considered a wall.
+   *
+   * @param x Position in the grid
+   * @param y Position in the grid
+   * @return The type of track position at the given location
+   */
+  public ConfigSpecification.SpaceType getSpaceType(int x, int y) {
+    return layout.getSpaceType(x, y);
   }
 
   /**
-   * determines the dimensions (x, y) of the Track and the grid representing it.
-   * @param trackFile given File
-   * @throws InvalidTrackFormatException
-   * @throws FileNotFoundException
+   * Return the ordinal of the {@link ConfigSpecification.SpaceType} at the given coordinates.
+   * The coordinates must lie within the track bounds.
+   *
+   * @param x Position in the grid
+   * @param y Position in the grid
+   * @return The ordinal of the type of space at the given location
    */
-  private ConfigSpecification.SpaceType[][] determineDimensions(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
-    Scanner scanner = new Scanner(trackFile);
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine();
-      if (height == 0) {
-        width = line.length();
-      }
-      if (width != line.length()) {
-        throw new InvalidTrackFormatException(
-                String.format("line %d has a length of %d, but should have length %d.", height + 1, line.length(), width));
-      }
-      height++;
-    }
-    scanner.close();
-    if (height == 0 || width == 0) {
-      throw new InvalidTrackFormatException("File contains an empty track");
-    }
-    return new ConfigSpecification.SpaceType[width][height];
+  public int getSpaceTypeOrdinal(int x, int y) {
+    return layout.getSpaceTypeOrdinal(x, y);
   }
 
   /**
-   * adds a car to the cars ArrayList
+   * Return the ordinal of the {@link ConfigSpecification.SpaceType} at the given cell index.
+   *
+   * @param cellIndex The row-major index of the space, see {@link #cellIndex(int, int)}
+   * @return The ordinal of the type of space at the given location
+   */
+  public int getSpaceTypeOrdinal(int cellIndex) {
+    return layout.getSpaceTypeOrdinal(cellIndex);
+  }
+
+  /**
+   * Converts x/y coordinates to the row-major cell index used by {@link #getSpaceTypeOrdinal(int)}.
+   *
    * @param x Position in the grid
    * @param y Position in the grid
-   * @param character which represents the car as an id
-   * @throws InvalidTrackFormatException if car id appears more than once
+   * @return The cell index of the position
    */
-  private void addCar(int x, int y, char character) throws InvalidTrackFormatException {
-    for (Car car : cars) {
-      if (car.getId() == character) {
-        throw new InvalidTrackFormatException(
-                String.format("The car with id %c appears more than once.", character));
-      }
-    }
-    cars.add(new Car(character, new PositionVector(x, y)));
+  public int cellIndex(int x, int y) {
+    return y * width + x;
   }
 
   /**
-   * Return the type of space at the given position.
-   * If the location is outside the track bounds, it is considered a wall.
+   * Convert a space type ordinal, as returned by {@link #getSpaceTypeOrdinal(int)}, back to its SpaceType.
    *
-   * @param position The coordinates of the position to examine
-   * @return The type of track position at the given location
+   * @param ordinal The ordinal of the space type
+   * @return The matching SpaceType
    */
-  @Override
-  public ConfigSpecification.SpaceType getSpaceType(PositionVector position) {
-    if (!positionIsInGrid(position)) {
-      return ConfigSpecification.SpaceType.WALL;
-    }
-    return grid[position.getX()][position.getY()];
+  public static ConfigSpecification.SpaceType spaceTypeOf(int ordinal) {
+    return TrackLayout.spaceTypeOf(ordinal);
   }
 
   /**
@@ -262,20 +295,19 @@ public class Track implements TrackSpecification {
    */
   @Override
   public char getCharAtPosition(int y, int x, Config.SpaceType currentSpace) {
-    PositionVector position = new PositionVector(x, y);
-    if (!positionIsInGrid(new PositionVector(x, y))) {
+    if (!positionIsInGrid(x, y)) {
       return '#';
     }
-    for (Car car : cars) {
-      if (car.getPosition().equals(position)) {
-        if (car.isCrashed()) {
-          return CRASH_INDICATOR;
-        }
-        return car.getId();
+    int cell = cellIndex(x, y);
+    int carIndex = occupancy.firstCar(cell);
+    if (carIndex != CarOccupancy.NO_CAR) {
+      Car car = cars.get(carIndex);
+      if (car.isCrashed()) {
+        return CRASH_INDICATOR;
       }
+      return car.getId();
     }
-    ConfigSpecification.SpaceType spaceType = this.getSpaceType(position);
-    return spaceType.value;
+    return TrackLayout.spaceTypeOf(layout.getSpaceTypeOrdinal(cell)).value;
   }
 
   /**
@@ -295,22 +327,32 @@ public class Track implements TrackSpecification {
 
   /**
    * Return a String representation of the track, including the car locations.
+   * The static board is rendered once by the layout, see {@link TrackLayout#getBaseFrame()}. Each call only
+   * restores the spaces of the cars drawn by the previous call and draws the cars at their current positions.
    *
    * @return A String representation of the track
    */
   @Override
   public String toString() {
-    StringBuilder track = new StringBuilder();
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        char currentChar = determineChar(x, y);
-        track.append(currentChar);
-      }
-      if (y != height - 1) {
-        track.append('\n');
+    char[] baseFrame = layout.getBaseFrame();
+    if (frame == null) {
+      frame = baseFrame.clone();
+      overlaidOffsets = new int[cars.size()];
+    }
+    for (int i = 0; i < overlaidCount; i++) {
+      frame[overlaidOffsets[i]] = baseFrame[overlaidOffsets[i]];
+    }
+    overlaidCount = 0;
+    for (Car car : cars) {
+      int x = car.getPosition().getX();
+      int y = car.getPosition().getY();
+      if (positionIsInGrid(x, y)) {
+        int offset = y * (width + 1) + x;
+        frame[offset] = getCharAtPosition(y, x, null);
+        overlaidOffsets[overlaidCount++] = offset;
       }
     }
-    return track.toString();
+    return new String(frame);
   }
 
   /**
@@ -321,25 +363,30 @@ public class Track implements TrackSpecification {
    * @return true if another car is already at the position.
    */
   public boolean hasDifferentCarAtPosition(PositionVector position, Car car) {
-    for (Car differentCar : cars) {
-      if (differentCar.getPosition().equals(position) && car.getId() != differentCar.getId()) {
-        return true;
-      }
-    }
-    return false;
+    return hasDifferentCarAtPosition(position.getX(), position.getY(), car);
   }
 
   /**
-   * determines the character at given location (can be either a car or a SpaceType character)
-   * Cars are "laid over" the grid, which means if a car is at the given Position, the cars id
-   * will be returned, and not the SpaceType beneath it.
-   * @param x Position in the grid
-   * @param y Position in the grid
-   * @return char at given Position
+   * Check if a different {@link Car} is already at the given coordinates.
+   *
+   * @param x   Position in the grid
+   * @param y   Position in the grid
+   * @param car The {@link Car} that should be ignored.
+   * @return true if another car is already at the position.
    */
-  private char determineChar(int x, int y) {
-    ConfigSpecification.SpaceType currentSpaceType = this.getSpaceType(new PositionVector(x, y));
-    return this.getCharAtPosition(y, x, currentSpaceType);
+  public boolean hasDifferentCarAtPosition(int x, int y, Car car) {
+    if (!positionIsInGrid(x, y)) {
+      for (Car differentCar : cars) {
+        PositionVector position = differentCar.getPosition();
+        if (position.getX() == x && position.getY() == y && car.getId() != differentCar.getId()) {
+          return true;
+        }
+      }
+      return false;
+    }
+    int cell = cellIndex(x, y);
+    int carCount = occupancy.carCount(cell);
+    return carCount > 1 || carCount == 1 && cars.get(occupancy.firstCar(cell)).getId() != car.getId();
   }
 
   public int getWidth() {
@@ -350,11 +397,45 @@ public class Track implements TrackSpecification {
     return height;
   }
 
+  /**
+   * @return how much data was read while loading the layout of this track and how long it took
+   */
+  public TrackLoadStatistics getLoadStatistics() {
+    return layout.getLoadStatistics();
+  }
+
+  /**
+   * Returns the board as a grid of SpaceTypes indexed [x][y], see {@link TrackLayout#getGrid()}.
+   *
+   * @return the board as a column-major grid, which must not be modified
+   */
   public ConfigSpecification.SpaceType[][] getGrid() {
-    return grid;
+    return layout.getGrid();
+  }
+
+  /**
+   * Returns the bitset view of the walls and finish line spaces, see {@link TrackLayout#getSpaceMask()}.
+   *
+   * @return the space mask of the board
+   */
+  public SpaceMask getSpaceMask() {
+    return layout.getSpaceMask();
+  }
+
+  /**
+   * Returns the summed-area tables of the walls and finish line spaces, see {@link TrackLayout#getSpaceSums()}.
+   *
+   * @return the summed-area tables of the board
+   */
+  public SpaceSums getSpaceSums() {
+    return layout.getSpaceSums();
   }
 
   private boolean positionIsInGrid(PositionVector position) {
-    return position.getX() <= width && position.getY() <= height;
+    return positionIsInGrid(position.getX(), position.getY());
+  }
+
+  private boolean positionIsInGrid(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
   }
 }
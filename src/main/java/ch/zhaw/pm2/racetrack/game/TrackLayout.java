@@ -0,0 +1,484 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The static part of a racetrack: the board, its dimensions, the start positions of the cars and the
+ * finish line spaces.
+ *
+ * <p>A layout is immutable and thread safe. It is loaded once and can be shared by any number of
+ * {@link Track}s, each of them holding the cars of one game. The track file format is described in
+ * {@link Track}.</p>
+ *
+ * <p>The board is stored as a packed, row-major array holding one byte per space, the byte being the
+ * ordinal of the {@link ConfigSpecification.SpaceType}. A space can be addressed either by its x/y coordinates
+ * or by its cell index ({@code y * width + x}), see {@link #getSpaceTypeOrdinal(int, int)} and
+ * {@link #getSpaceTypeOrdinal(int)}.</p>
+ */
+public final class TrackLayout {
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+  private static final long MAPPED_WINDOW_SIZE = 1L << 30;
+  private static final ConfigSpecification.SpaceType[] SPACE_TYPES = ConfigSpecification.SpaceType.values();
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final int width;
+  private final int height;
+  /**
+   * Row-major board, one {@link ConfigSpecification.SpaceType} ordinal per space.
+   */
+  private final byte[] cells;
+  private final char[] carIds;
+  /**
+   * Row-major cell indices of the car start positions, in the same order as {@link #carIds}.
+   */
+  private final int[] carCells;
+  /**
+   * Row-major cell indices of all finish line spaces, in ascending order.
+   */
+  private final int[] finishCells;
+  private final TrackLoadStatistics loadStatistics;
+  /**
+   * Column-major compatibility view of {@link #cells}, only built when {@link #getGrid()} is called.
+   */
+  private volatile ConfigSpecification.SpaceType[][] grid;
+  /**
+   * The board rendered without cars, only built when {@link #getBaseFrame()} is called.
+   */
+  private volatile char[] baseFrame;
+  /**
+   * Bitset view of the walls and finish line spaces, only built when {@link #getSpaceMask()} is called.
+   */
+  private volatile SpaceMask spaceMask;
+  /**
+   * Summed-area tables of the walls and finish line spaces, only built when {@link #getSpaceSums()} is called.
+   */
+  private volatile SpaceSums spaceSums;
+  /**
+   * Hash of the board, only computed when {@link #getContentHash()} is called; 0 until then.
+   */
+  private volatile long contentHash;
+  /**
+   * Accelerations which do not crash by maximum speed, only built when {@link #getLegalMoves(int)} is called.
+   */
+  private final Map<Integer, LegalMoveTable> legalMoves = new HashMap<>();
+
+  /**
+   * Creates a layout. The arrays are taken over and must not be modified afterwards.
+   *
+   * @param width          number of columns
+   * @param height         number of rows
+   * @param cells          row-major board of space type ordinals
+   * @param carIds         ids of the cars
+   * @param carCells       row-major cell indices of the car start positions
+   * @param loadStatistics statistics of loading the layout
+   */
+  TrackLayout(int width, int height, byte[] cells, char[] carIds, int[] carCells, TrackLoadStatistics loadStatistics) {
+    this(width, height, cells, carIds, carCells, findFinishCells(cells), loadStatistics);
+  }
+
+  /**
+   * Creates a layout whose finish line spaces are already known. The arrays are taken over and must not be
+   * modified afterwards.
+   *
+   * @param width          number of columns
+   * @param height         number of rows
+   * @param cells          row-major board of space type ordinals
+   * @param carIds         ids of the cars
+   * @param carCells       row-major cell indices of the car start positions
+   * @param finishCells    row-major cell indices of the finish line spaces, in ascending order
+   * @param loadStatistics statistics of loading the layout
+   */
+  TrackLayout(int width, int height, byte[] cells, char[] carIds, int[] carCells, int[] finishCells,
+              TrackLoadStatistics loadStatistics) {
+    this.width = width;
+    this.height = height;
+    this.cells = cells;
+    this.carIds = carIds;
+    this.carCells = carCells;
+    this.finishCells = finishCells;
+    this.loadStatistics = loadStatistics;
+  }
+
+  /**
+   * Loads a layout from the given track file.
+   * A text track file is read once, in chunks of {@link #READ_BUFFER_SIZE} characters. A file in the
+   * {@link CompiledTrack compiled format} is recognized by its header and loaded without parsing.
+   *
+   * @param trackFile Reference to a file containing the track data
+   * @return the loaded layout
+   * @throws FileNotFoundException       if the given track file could not be found
+   * @throws InvalidTrackFormatException if the track file contains invalid data (no tracklines, ...)
+   */
+  public static TrackLayout load(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
+    if (CompiledTrack.isCompiled(trackFile)) {
+      return CompiledTrack.read(trackFile);
+    }
+    long startTime = System.nanoTime();
+    long fileLength = trackFile.length();
+    TrackParser parser = new TrackParser(fileLength);
+    try (Reader reader = new FileReader(trackFile)) {
+      char[] buffer = new char[READ_BUFFER_SIZE];
+      int length;
+      while ((length = reader.read(buffer)) != -1) {
+        parser.accept(buffer, length);
+      }
+    } catch (FileNotFoundException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    parser.finish();
+    return fromParser(parser, fileLength, startTime);
+  }
+
+  /**
+   * Loads a layout by memory-mapping the given text track file.
+   * The board is built straight from the mapped bytes, so no line strings are created and the heap only has
+   * to hold the packed board. The file is mapped in windows of {@link #MAPPED_WINDOW_SIZE} bytes, which also
+   * allows files larger than 2 GB. Only ASCII track files can be loaded this way, files in the
+   * {@link CompiledTrack compiled format} are passed on to {@link CompiledTrack#read(File)}.
+   *
+   * @param trackFile Reference to a file containing the track data
+   * @return the loaded layout
+   * @throws FileNotFoundException       if the given track file could not be found
+   * @throws InvalidTrackFormatException if the track file contains invalid data or non-ASCII characters
+   */
+  public static TrackLayout map(File trackFile) throws FileNotFoundException, InvalidTrackFormatException {
+    if (CompiledTrack.isCompiled(trackFile)) {
+      return CompiledTrack.read(trackFile);
+    }
+    long startTime = System.nanoTime();
+    try (RandomAccessFile file = new RandomAccessFile(trackFile, "r");
+         FileChannel channel = file.getChannel()) {
+      long fileLength = channel.size();
+      TrackParser parser = new TrackParser(fileLength);
+      for (long offset = 0; offset < fileLength; offset += MAPPED_WINDOW_SIZE) {
+        long windowSize = Math.min(MAPPED_WINDOW_SIZE, fileLength - offset);
+        parser.acceptAscii(channel.map(FileChannel.MapMode.READ_ONLY, offset, windowSize), offset);
+      }
+      parser.finish();
+      return fromParser(parser, fileLength, startTime);
+    } catch (FileNotFoundException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static TrackLayout fromParser(TrackParser parser, long fileLength, long startTime) {
+    byte[] cells = parser.getCells();
+    return new TrackLayout(parser.getWidth(), parser.getHeight(), cells, parser.getCarIds(), parser.getCarCells(),
+            new TrackLoadStatistics(fileLength, cells.length, System.nanoTime() - startTime));
+  }
+
+  private static int[] findFinishCells(byte[] cells) {
+    int count = 0;
+    for (byte cell : cells) {
+      if (isFinish(cell)) {
+        count++;
+      }
+    }
+    int[] finishCells = new int[count];
+    count = 0;
+    for (int cell = 0; cell < cells.length; cell++) {
+      if (isFinish(cells[cell])) {
+        finishCells[count++] = cell;
+      }
+    }
+    return finishCells;
+  }
+
+  private static boolean isFinish(int ordinal) {
+    return ordinal != ConfigSpecification.SpaceType.WALL.ordinal()
+            && ordinal != ConfigSpecification.SpaceType.TRACK.ordinal();
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * @return how much data was read while loading this layout and how long it took
+   */
+  public TrackLoadStatistics getLoadStatistics() {
+    return loadStatistics;
+  }
+
+  /**
+   * Return the type of space at the given position.
+   * If the location is outside the track bounds, it is considered a wall.
+   *
+   * @param position The coordinates of the position to examine
+   * @return The type of track position at the given location
+   */
+  public ConfigSpecification.SpaceType getSpaceType(PositionVector position) {
+    return getSpaceType(position.getX(), position.getY());
+  }
+
+  /**
+   * Return the type of space at the given coordinates.
+   * If the location is outside the track bounds, it is considered a wall.
+   *
+   * @param x Position in the grid
+   * @param y Position in the grid
+   * @return The type of track position at the given location
+   */
+  public ConfigSpecification.SpaceType getSpaceType(int x, int y) {
+    if (!isInside(x, y)) {
+      return ConfigSpecification.SpaceType.WALL;
+    }
+    return SPACE_TYPES[cells[cellIndex(x, y)]];
+  }
+
+  /**
+   * Return the ordinal of the {@link ConfigSpecification.SpaceType} at the given coordinates.
+   * The coordinates must lie within the track bounds.
+   *
+   * @param x Position in the grid
+   * @param y Position in the grid
+   * @return The ordinal of the type of space at the given location
+   */
+  public int getSpaceTypeOrdinal(int x, int y) {
+    return cells[cellIndex(x, y)];
+  }
+
+  /**
+   * Return the ordinal of the {@link ConfigSpecification.SpaceType} at the given cell index.
+   *
+   * @param cellIndex The row-major index of the space, see {@link #cellIndex(int, int)}
+   * @return The ordinal of the type of space at the given location
+   */
+  public int getSpaceTypeOrdinal(int cellIndex) {
+    return cells[cellIndex];
+  }
+
+  /**
+   * Converts x/y coordinates to the row-major cell index used by {@link #getSpaceTypeOrdinal(int)}.
+   *
+   * @param x Position in the grid
+   * @param y Position in the grid
+   * @return The cell index of the position
+   */
+  public int cellIndex(int x, int y) {
+    return y * width + x;
+  }
+
+  /**
+   * Convert a space type ordinal, as returned by {@link #getSpaceTypeOrdinal(int)}, back to its SpaceType.
+   *
+   * @param ordinal The ordinal of the space type
+   * @return The matching SpaceType
+   */
+  public static ConfigSpecification.SpaceType spaceTypeOf(int ordinal) {
+    return SPACE_TYPES[ordinal];
+  }
+
+  /**
+   * @param x Position in the grid
+   * @param y Position in the grid
+   * @return true if the coordinates lie within the track bounds
+   */
+  public boolean isInside(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  /**
+   * @return the number of cars starting on this track, between 1 and {@link Config#MAX_CARS}
+   */
+  public int getCarCount() {
+    return carIds.length;
+  }
+
+  /**
+   * @param carIndex The zero-based carIndex number
+   * @return the id of the car
+   */
+  public char getCarId(int carIndex) {
+    return carIds[carIndex];
+  }
+
+  /**
+   * @param carIndex The zero-based carIndex number
+   * @return a new PositionVector holding the start position of the car
+   */
+  public PositionVector getStartPosition(int carIndex) {
+    return new PositionVector(carCells[carIndex] % width, carCells[carIndex] / width);
+  }
+
+  /**
+   * @return the number of finish line spaces
+   */
+  public int getFinishCellCount() {
+    return finishCells.length;
+  }
+
+  /**
+   * @param index index between 0 and {@link #getFinishCellCount()}
+   * @return the row-major cell index of a finish line space, the cells are sorted in ascending order
+   */
+  public int getFinishCell(int index) {
+    return finishCells[index];
+  }
+
+  /**
+   * Returns the board as a grid of SpaceTypes indexed [x][y].
+   * The grid is built from the packed board on the first call, later calls return the same instance,
+   * which is shared by all users of this layout and must not be modified.
+   *
+   * @return the board as a column-major grid
+   */
+  public ConfigSpecification.SpaceType[][] getGrid() {
+    ConfigSpecification.SpaceType[][] columns = grid;
+    if (columns == null) {
+      columns = new ConfigSpecification.SpaceType[width][height];
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          columns[x][y] = SPACE_TYPES[cells[cellIndex(x, y)]];
+        }
+      }
+      grid = columns;
+    }
+    return columns;
+  }
+
+  /**
+   * Returns the walls and finish line spaces as bitsets for word-parallel collision checks.
+   * The mask is built on the first call, later calls return the same instance.
+   *
+   * @return the space mask of the board
+   */
+  public SpaceMask getSpaceMask() {
+    SpaceMask mask = spaceMask;
+    if (mask == null) {
+      mask = SpaceMask.of(this);
+      spaceMask = mask;
+    }
+    return mask;
+  }
+
+  /**
+   * Returns the summed-area tables of the walls and finish line spaces for constant time rectangle checks.
+   * The tables are built on the first call, later calls return the same instance.
+   *
+   * @return the summed-area tables of the board
+   */
+  public SpaceSums getSpaceSums() {
+    SpaceSums sums = spaceSums;
+    if (sums == null) {
+      sums = SpaceSums.of(this);
+      spaceSums = sums;
+    }
+    return sums;
+  }
+
+  /**
+   * Returns the accelerations which do not crash, for every space and every velocity up to the given speed.
+   * The table of a speed is built on the first call with it, later calls with the same speed return the same
+   * instance, also if path finders with different speeds ask for tables in between.
+   *
+   * @param maxSpeed largest velocity component covered by the table
+   * @return the legal move table of the board, null if the board is too large for it
+   * @throws IllegalArgumentException if the maximum speed is negative
+   */
+  public LegalMoveTable getLegalMoves(int maxSpeed) {
+    synchronized (legalMoves) {
+      LegalMoveTable table = legalMoves.get(maxSpeed);
+      if (table != null) {
+        return table;
+      }
+    }
+    if (maxSpeed >= 0 && !LegalMoveTable.fits(this, maxSpeed)) {
+      return null;
+    }
+    LegalMoveTable table = LegalMoveTable.of(this, maxSpeed);
+    synchronized (legalMoves) {
+      LegalMoveTable shared = legalMoves.putIfAbsent(maxSpeed, table);
+      return shared != null ? shared : table;
+    }
+  }
+
+  /**
+   * Returns a 64 bit hash of the dimensions and the space types of the board, see {@link #contentHash(ConfigSpecification.SpaceType[][])}.
+   * The hash is computed on the first call. Cars are not part of the hash.
+   *
+   * @return the hash of the board
+   */
+  public long getContentHash() {
+    long hash = contentHash;
+    if (hash == 0) {
+      hash = hashDimensions(width, height);
+      for (byte cell : cells) {
+        hash = (hash ^ cell) * FNV_PRIME;
+      }
+      contentHash = hash;
+    }
+    return hash;
+  }
+
+  /**
+   * Computes the hash of a grid as returned by {@link #getGrid()}, equal to the {@link #getContentHash()}
+   * of the layout the grid was built from. The hash is FNV-1a over the dimensions and the row-major
+   * space type ordinals.
+   *
+   * @param grid the board indexed [x][y]
+   * @return the hash of the board
+   */
+  public static long contentHash(ConfigSpecification.SpaceType[][] grid) {
+    int width = grid.length;
+    int height = grid[0].length;
+    long hash = hashDimensions(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        hash = (hash ^ grid[x][y].ordinal()) * FNV_PRIME;
+      }
+    }
+    return hash;
+  }
+
+  private static long hashDimensions(int width, int height) {
+    return (((FNV_OFFSET_BASIS ^ width) * FNV_PRIME) ^ height) * FNV_PRIME;
+  }
+
+  /**
+   * Returns the board rendered without cars, rows separated by a newline.
+   * The characters are shared by all users of this layout and must not be modified.
+   *
+   * @return the characters of the board
+   */
+  char[] getBaseFrame() {
+    char[] board = baseFrame;
+    if (board == null) {
+      board = new char[height * (width + 1) - 1];
+      int offset = 0;
+      for (int y = 0; y < height; y++) {
+        int rowStart = cellIndex(0, y);
+        for (int x = 0; x < width; x++) {
+          board[offset++] = SPACE_TYPES[cells[rowStart + x]].value;
+        }
+        if (y != height - 1) {
+          board[offset++] = '\n';
+        }
+      }
+      baseFrame = board;
+    }
+    return board;
+  }
+}
@@ -0,0 +1,59 @@
+package ch.zhaw.pm2.racetrack.game;
+
+/**
+ * Holds how much data was read while loading a {@link Track} and how long it took.
+ */
+public final class TrackLoadStatistics {
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+  private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+  private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+  private final long bytes;
+  private final long spaces;
+  private final long nanos;
+
+  /**
+   * Creates the statistics of one load.
+   *
+   * @param bytes  number of bytes read from the track file
+   * @param spaces number of spaces (width * height) of the loaded board
+   * @param nanos  duration of the load in nanoseconds
+   */
+  public TrackLoadStatistics(long bytes, long spaces, long nanos) {
+    this.bytes = bytes;
+    this.spaces = spaces;
+    this.nanos = Math.max(1, nanos);
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  public long getSpaces() {
+    return spaces;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * @return the read throughput in bytes per second
+   */
+  public double getBytesPerSecond() {
+    return bytes * NANOS_PER_SECOND / nanos;
+  }
+
+  /**
+   * @return the number of board spaces loaded per second
+   */
+  public double getSpacesPerSecond() {
+    return spaces * NANOS_PER_SECOND / nanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Loaded %d spaces (%d bytes) in %.2f ms, %.1f MB/s",
+            spaces, bytes, nanos / NANOS_PER_MILLISECOND, getBytesPerSecond() / BYTES_PER_MEGABYTE);
+  }
+}
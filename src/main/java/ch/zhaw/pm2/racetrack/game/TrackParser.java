@@ -0,0 +1,230 @@
+package ch.zhaw.pm2.racetrack.game;
+
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Single pass parser for the text track format described in {@link Track}.
+ *
+ * <p>The characters of the track file are pushed into the parser in arbitrary chunks with
+ * {@link #accept(char[], int)} (or one by one with {@link #accept(int)}). Lines are terminated the same way
+ * as by {@link java.util.Scanner#nextLine()}: by {@code \r\n} or any of {@code \n}, {@code \r}, U+0085,
+ * U+2028 and U+2029. After the last chunk {@link #finish()} validates the result.
+ * The board is written straight into a packed row-major array, characters are decoded through a
+ * 256 entry lookup table instead of {@link ConfigSpecification.SpaceType#fromChar(char)}.</p>
+ */
+final class TrackParser {
+  private static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+  /**
+   * Marks a character in {@link #SPACE_TYPE_BY_CHAR} which does not stand for a space type, but for a car.
+   */
+  private static final byte CAR = -1;
+  private static final byte LINE_SEPARATOR = -2;
+  private static final byte CARRIAGE_RETURN = -3;
+  private static final byte TRACK = (byte) ConfigSpecification.SpaceType.TRACK.ordinal();
+  private static final byte[] SPACE_TYPE_BY_CHAR = new byte[256];
+
+  static {
+    Arrays.fill(SPACE_TYPE_BY_CHAR, CAR);
+    SPACE_TYPE_BY_CHAR['\n'] = LINE_SEPARATOR;
+    SPACE_TYPE_BY_CHAR['\u0085'] = LINE_SEPARATOR;
+    SPACE_TYPE_BY_CHAR['\r'] = CARRIAGE_RETURN;
+    for (ConfigSpecification.SpaceType spaceType : ConfigSpecification.SpaceType.values()) {
+      SPACE_TYPE_BY_CHAR[spaceType.value] = (byte) spaceType.ordinal();
+    }
+  }
+
+  private int width = -1;
+  private int height;
+  private int column;
+  private boolean skipLineFeed;
+  private byte[] cells;
+  private final StringBuilder carIds = new StringBuilder();
+  private int[] carXs = new int[ConfigSpecification.MAX_CARS + 1];
+  private int[] carYs = new int[ConfigSpecification.MAX_CARS + 1];
+  private final BitSet usedCarIds = new BitSet();
+
+  /**
+   * Creates a parser.
+   *
+   * @param expectedSize upper bound of the number of spaces, used to size the board up front (e.g. the file length)
+   */
+  TrackParser(long expectedSize) {
+    cells = new byte[(int) Math.max(16, Math.min(expectedSize, MAX_CELLS))];
+  }
+
+  /**
+   * Parses the given characters.
+   *
+   * @param characters buffer holding the characters
+   * @param length     number of characters to read from the start of the buffer
+   * @throws InvalidTrackFormatException if the characters read so far do not form a valid track
+   */
+  void accept(char[] characters, int length) throws InvalidTrackFormatException {
+    for (int i = 0; i < length; i++) {
+      accept(characters[i]);
+    }
+  }
+
+  /**
+   * Parses the remaining bytes of the given buffer as ASCII characters, e.g. a memory-mapped region of a
+   * track file. No strings or character arrays are created.
+   *
+   * @param bytes  buffer holding the bytes, read from its position up to its limit
+   * @param offset offset of the buffer's position within the file, used in error messages
+   * @throws InvalidTrackFormatException if a byte is not ASCII or the bytes read so far do not form a valid track
+   */
+  void acceptAscii(ByteBuffer bytes, long offset) throws InvalidTrackFormatException {
+    int start = bytes.position();
+    for (int i = start; i < bytes.limit(); i++) {
+      byte character = bytes.get(i);
+      if (character < 0) {
+        throw new InvalidTrackFormatException(
+                String.format("The non-ASCII byte 0x%02x at offset %d can not be read from a mapped track file.",
+                        character & 0xff, offset + i - start));
+      }
+      accept(character);
+    }
+  }
+
+  /**
+   * Parses a single character.
+   *
+   * @param character the next character of the track file
+   * @throws InvalidTrackFormatException if the characters read so far do not form a valid track
+   */
+  void accept(int character) throws InvalidTrackFormatException {
+    byte spaceType;
+    if (character < SPACE_TYPE_BY_CHAR.length) {
+      spaceType = SPACE_TYPE_BY_CHAR[character];
+    } else {
+      spaceType = character == '\u2028' || character == '\u2029' ? LINE_SEPARATOR : CAR;
+    }
+    if (spaceType < 0 && spaceType != CAR) {
+      if (character != '\n' || !skipLineFeed) {
+        endLine();
+      }
+      skipLineFeed = spaceType == CARRIAGE_RETURN;
+      return;
+    }
+    skipLineFeed = false;
+    if (spaceType == CAR) {
+      addCar((char) character);
+      spaceType = TRACK;
+    }
+    if (width < 0 || column < width) {
+      setCell(height * (long) Math.max(width, 0) + column, spaceType);
+    }
+    column++;
+  }
+
+  /**
+   * Ends the input and validates the parsed track.
+   *
+   * @throws InvalidTrackFormatException if the track is empty or has an invalid number of cars
+   */
+  void finish() throws InvalidTrackFormatException {
+    if (column > 0) {
+      endLine();
+    }
+    if (height == 0 || width == 0) {
+      throw new InvalidTrackFormatException("File contains an empty track");
+    }
+    if (carIds.length() > ConfigSpecification.MAX_CARS) {
+      throw new InvalidTrackFormatException(
+              String.format("There are more than %d (maximum) cars on the track.", ConfigSpecification.MAX_CARS));
+    }
+    if (carIds.length() == 0) {
+      throw new InvalidTrackFormatException("There are no cars on the Track.");
+    }
+    if (cells.length != width * height) {
+      cells = Arrays.copyOf(cells, width * height);
+    }
+  }
+
+  int getWidth() {
+    return width;
+  }
+
+  int getHeight() {
+    return height;
+  }
+
+  /**
+   * @return the row-major board, only valid after {@link #finish()}
+   */
+  byte[] getCells() {
+    return cells;
+  }
+
+  /**
+   * @return the ids of the cars in the order they appear in the file
+   */
+  char[] getCarIds() {
+    return carIds.toString().toCharArray();
+  }
+
+  /**
+   * @return the row-major cell indices of the car start positions, only valid after {@link #finish()}
+   */
+  int[] getCarCells() {
+    int[] carCells = new int[carIds.length()];
+    for (int i = 0; i < carCells.length; i++) {
+      carCells[i] = carYs[i] * width + carXs[i];
+    }
+    return carCells;
+  }
+
+  private void endLine() throws InvalidTrackFormatException {
+    if (height == 0) {
+      width = column;
+    }
+    if (width != column) {
+      throw new InvalidTrackFormatException(
+              String.format("line %d has a length of %d, but should have length %d.", height + 1, column, width));
+    }
+    height++;
+    column = 0;
+  }
+
+  private void setCell(long index, byte spaceType) throws InvalidTrackFormatException {
+    if (index >= cells.length) {
+      if (index >= MAX_CELLS) {
+        throw new InvalidTrackFormatException(
+                String.format("The track exceeds the maximum of %d spaces.", MAX_CELLS));
+      }
+      cells = Arrays.copyOf(cells, (int) Math.min(MAX_CELLS, Math.max(index + 1, 2L * cells.length)));
+    }
+    cells[(int) index] = spaceType;
+  }
+
+  /**
+   * adds a car start position
+   *
+   * @param id character which represents the car as an id
+   * @throws InvalidTrackFormatException if the car has the crash indicator as id or the id appears more than once
+   */
+  private void addCar(char id) throws InvalidTrackFormatException {
+    if (id == Track.CRASH_INDICATOR) {
+      throw new InvalidTrackFormatException(
+              String.format("Car at X: %d, Y: %d has the Crash-Indicator (%s) as index", column, height, Track.CRASH_INDICATOR));
+    }
+    if (usedCarIds.get(id)) {
+      throw new InvalidTrackFormatException(
+              String.format("The car with id %c appears more than once.", id));
+    }
+    usedCarIds.set(id);
+    int carIndex = carIds.length();
+    if (carIndex == carXs.length) {
+      carXs = Arrays.copyOf(carXs, 2 * carIndex);
+      carYs = Arrays.copyOf(carYs, 2 * carIndex);
+    }
+    carXs[carIndex] = column;
+    carYs[carIndex] = height;
+    carIds.append(id);
+  }
+}
@@ -0,0 +1,206 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A* search over the states (x, y, vx, vy) of a car, finding the route to the finish line with the fewest turns.
+ *
+ * <p>Every turn costs one. The heuristic is the {@link TurnsToGoHeuristic}, a lower bound on the turns to go
+ * from the distance to the finish line and the speed. States which the {@link ViabilityKernel} the planner was
+ * created with, if any, knows to be doomed are not added to the open list.</p>
+ *
+ * <p>A move which crosses the finish line in the wrong direction or along it is treated like a crash,
+ * since the game stops the car on the finish line in that case.</p>
+ */
+class AStarPlanner {
+  private static final int NO_PARENT = -1;
+  /**
+   * Fields of a node, stored one after the other in {@link #nodes}.
+   */
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int VX = 2;
+  private static final int VY = 3;
+  private static final int TURNS = 4;
+  private static final int PARENT = 5;
+  private static final int MOVE = 6;
+  private static final int FINISHED = 7;
+  private static final int NODE_SIZE = 8;
+  private static final int PRIORITY_SHIFT = 48;
+  private static final int TIE_BREAK_SHIFT = 32;
+  private static final int MAX_TIE_BREAK = 0xffff;
+  private static final PositionVector.Direction[] DIRECTIONS = PositionVector.Direction.values();
+
+  private final PathFinderStrategy pathFinder;
+  private final ViabilityKernel viabilityKernel;
+  private int[] nodes = new int[NODE_SIZE * 1024];
+  private int nodeCount;
+  private long[] open = new long[1024];
+  private int openSize;
+  private final LongIntHashMap bestNodes = new LongIntHashMap();
+  private long expandedNodes;
+
+  /**
+   * @param pathFinder      the path finder providing the distance grid and the move checks
+   * @param viabilityKernel the states from which the finish line can be reached, null to search all states
+   */
+  AStarPlanner(PathFinderStrategy pathFinder, ViabilityKernel viabilityKernel) {
+    this.pathFinder = pathFinder;
+    this.viabilityKernel = viabilityKernel;
+  }
+
+  /**
+   * Searches the route with the fewest turns from the given state to the finish line.
+   *
+   * @param location start position of the car
+   * @param velocity start velocity of the car
+   * @return the moves of the route, empty if the finish line can not be reached
+   */
+  List<PositionVector.Direction> plan(PositionVector location, PositionVector velocity) {
+    int distance = pathFinder.getDistanceGrid(location.getX(), location.getY());
+    int estimate = TurnsToGoHeuristic.estimate(pathFinder, location.getX(), location.getY(), velocity.getX(),
+            velocity.getY());
+    int start = addNode(location.getX(), location.getY(), velocity.getX(), velocity.getY(), 0, NO_PARENT, 0);
+    push(start, estimate, distance);
+    while (openSize > 0) {
+      int node = pop();
+      if (nodes[node + FINISHED] != 0) {
+        return route(node);
+      }
+      if (bestNodes.get(stateKey(node), NO_PARENT) != node) {
+        continue;
+      }
+      expandedNodes++;
+      expand(node);
+    }
+    return new ArrayList<>();
+  }
+
+  private void expand(int node) {
+    int x = nodes[node + X];
+    int y = nodes[node + Y];
+    int turns = nodes[node + TURNS] + 1;
+    PositionVector location = new PositionVector(x, y);
+    int legalMoves = pathFinder.legalMoves(x, y, nodes[node + VX], nodes[node + VY]);
+    for (PositionVector.Direction direction : DIRECTIONS) {
+      if ((legalMoves & (1 << direction.ordinal())) == 0) {
+        continue;
+      }
+      int velocityX = nodes[node + VX] + direction.vector.getX();
+      int velocityY = nodes[node + VY] + direction.vector.getY();
+      PositionVector nextPosition = new PositionVector(x + velocityX, y + velocityY);
+      if (pathFinder.willFinish(location, nextPosition)) {
+        int finish = addNode(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY, turns, node, direction.ordinal());
+        nodes[finish + FINISHED] = 1;
+        push(finish, turns, 0);
+        continue;
+      }
+      int distance = pathFinder.getDistanceGrid(nextPosition.getX(), nextPosition.getY());
+      if (distance == DistanceFieldEngine.FREE || pathFinder.crossesFinishLine(location, nextPosition)
+              || !isViable(nextPosition, velocityX, velocityY)) {
+        continue;
+      }
+      long key = pathFinder.stateKey(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY);
+      int known = bestNodes.get(key, NO_PARENT);
+      if (known != NO_PARENT && nodes[known + TURNS] <= turns) {
+        continue;
+      }
+      int child = addNode(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY, turns, node, direction.ordinal());
+      bestNodes.put(key, child);
+      push(child, turns + TurnsToGoHeuristic.estimate(pathFinder, nextPosition.getX(), nextPosition.getY(),
+              velocityX, velocityY), distance);
+    }
+  }
+
+  private boolean isViable(PositionVector position, int velocityX, int velocityY) {
+    return viabilityKernel == null || !viabilityKernel.isDoomed(position.getX(), position.getY(), velocityX, velocityY);
+  }
+
+  private List<PositionVector.Direction> route(int finish) {
+    int length = nodes[finish + TURNS];
+    PositionVector.Direction[] route = new PositionVector.Direction[length];
+    for (int node = finish; nodes[node + PARENT] != NO_PARENT; node = nodes[node + PARENT]) {
+      route[--length] = DIRECTIONS[nodes[node + MOVE]];
+    }
+    return new ArrayList<>(Arrays.asList(route));
+  }
+
+  /**
+   * @return the number of nodes taken from the open list and expanded by the last search
+   */
+  long getExpandedNodes() {
+    return expandedNodes;
+  }
+
+  /**
+   * @return the number of nodes created by the last search
+   */
+  long getGeneratedNodes() {
+    return nodeCount / NODE_SIZE;
+  }
+
+  private long stateKey(int node) {
+    return pathFinder.stateKey(nodes[node + X], nodes[node + Y], nodes[node + VX], nodes[node + VY]);
+  }
+
+  private int addNode(int x, int y, int velocityX, int velocityY, int turns, int parent, int move) {
+    if (nodeCount == nodes.length) {
+      nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+    }
+    int node = nodeCount;
+    nodes[node + X] = x;
+    nodes[node + Y] = y;
+    nodes[node + VX] = velocityX;
+    nodes[node + VY] = velocityY;
+    nodes[node + TURNS] = turns;
+    nodes[node + PARENT] = parent;
+    nodes[node + MOVE] = move;
+    nodes[node + FINISHED] = 0;
+    nodeCount += NODE_SIZE;
+    if (parent == NO_PARENT) {
+      bestNodes.put(stateKey(node), node);
+    }
+    return node;
+  }
+
+  /**
+   * Adds a node to the open list, ordered by its estimated total number of turns and, among equal estimates,
+   * by its distance to the finish line. The node offset fills the lower bits of the entry.
+   */
+  private void push(int node, int estimate, int distance) {
+    long entry = ((long) estimate << PRIORITY_SHIFT) | ((long) Math.min(distance, MAX_TIE_BREAK) << TIE_BREAK_SHIFT)
+            | (node / NODE_SIZE);
+    if (openSize == open.length) {
+      open = Arrays.copyOf(open, 2 * openSize);
+    }
+    int index = openSize++;
+    while (index > 0 && open[(index - 1) / 2] > entry) {
+      open[index] = open[(index - 1) / 2];
+      index = (index - 1) / 2;
+    }
+    open[index] = entry;
+  }
+
+  private int pop() {
+    long first = open[0];
+    long last = open[--openSize];
+    int index = 0;
+    while (2 * index + 1 < openSize) {
+      int child = 2 * index + 1;
+      if (child + 1 < openSize && open[child + 1] < open[child]) {
+        child++;
+      }
+      if (open[child] >= last) {
+        break;
+      }
+      open[index] = open[child];
+      index = child;
+    }
+    open[index] = last;
+    return (int) first * NODE_SIZE;
+  }
+}
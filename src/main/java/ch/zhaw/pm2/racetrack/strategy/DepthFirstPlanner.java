@@ -0,0 +1,211 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Greedy depth first search for a route to the finish line, the default planning mode of the
+ * {@link PathFinderStrategy}.
+ *
+ * <p>From every state the moves which do not crash, see {@link PathFinderStrategy#legalMoves(int, int, int, int)},
+ * are tried in the order of the distance of their end position to the finish line, a move which wins is
+ * taken at once. States from which no route was found are remembered as dead ends and not explored again.
+ * States which are already on the route being searched are skipped, so a car which can not get closer to the
+ * finish line does not circle through the same states until the stack is full. With a {@link ViabilityKernel},
+ * the moves to states outside of the kernel are not tried at all, since no route can continue from them.</p>
+ *
+ * <p>The search runs on an explicit stack of frames in a primitive array instead of the call stack, so the
+ * length of a route is only limited by the maximum search depth. If the stack would grow beyond that depth,
+ * the search is aborted without a route.</p>
+ */
+class DepthFirstPlanner {
+  private static final int NO_MOVE = -1;
+  private static final int NOT_ON_STACK = -1;
+  /**
+   * Fields of a frame, stored one after the other in {@link #frames}. A frame holds the state of the car, the
+   * moves still to try, sorted by distance, and the winning move, if any.
+   */
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int VX = 2;
+  private static final int VY = 3;
+  private static final int MOVE_COUNT = 4;
+  private static final int NEXT_MOVE = 5;
+  private static final int FINISH_MOVE = 6;
+  private static final int MOVES = 7;
+  private static final PositionVector.Direction[] DIRECTIONS = PositionVector.Direction.values();
+  private static final int FRAME_SIZE = MOVES + DIRECTIONS.length;
+  private static final int INITIAL_FRAMES = 256;
+
+  private final PathFinderStrategy pathFinder;
+  private final int maxSearchDepth;
+  private final ViabilityKernel viabilityKernel;
+  private int[] frames = new int[INITIAL_FRAMES * FRAME_SIZE];
+  private int depth;
+  private final int[] distances = new int[DIRECTIONS.length];
+  private final LongHashSet deadEnds = new LongHashSet();
+  /**
+   * Keys of the states on the stack, mapped to their depth.
+   */
+  private final LongIntHashMap onStack = new LongIntHashMap();
+  private long deadEndHits;
+  private long deadEndMisses;
+  private long generatedNodes;
+  private boolean aborted;
+
+  /**
+   * @param pathFinder      the path finder providing the distance grid and the move checks
+   * @param maxSearchDepth  maximum number of frames on the search stack
+   * @param viabilityKernel the states from which the finish line can be reached, null to search all states
+   */
+  DepthFirstPlanner(PathFinderStrategy pathFinder, int maxSearchDepth, ViabilityKernel viabilityKernel) {
+    this.pathFinder = pathFinder;
+    this.maxSearchDepth = maxSearchDepth;
+    this.viabilityKernel = viabilityKernel;
+  }
+
+  /**
+   * Searches a route from the given state to the finish line.
+   *
+   * @param location start position of the car
+   * @param velocity start velocity of the car
+   * @return the moves of the route, empty if no route was found or the search was aborted
+   */
+  List<PositionVector.Direction> plan(PositionVector location, PositionVector velocity) {
+    enter(location.getX(), location.getY(), velocity.getX(), velocity.getY());
+    while (depth > 0) {
+      int frame = (depth - 1) * FRAME_SIZE;
+      if (frames[frame + FINISH_MOVE] != NO_MOVE) {
+        return route();
+      }
+      if (frames[frame + NEXT_MOVE] == frames[frame + MOVE_COUNT]) {
+        long key = pathFinder.stateKey(frames[frame + X], frames[frame + Y], frames[frame + VX], frames[frame + VY]);
+        deadEnds.add(key);
+        onStack.remove(key);
+        depth--;
+        continue;
+      }
+      if (depth == maxSearchDepth) {
+        aborted = true;
+        return new ArrayList<>();
+      }
+      PositionVector.Direction move = DIRECTIONS[frames[frame + MOVES + frames[frame + NEXT_MOVE]++]];
+      int velocityX = frames[frame + VX] + move.vector.getX();
+      int velocityY = frames[frame + VY] + move.vector.getY();
+      enter(frames[frame + X] + velocityX, frames[frame + Y] + velocityY, velocityX, velocityY);
+    }
+    return new ArrayList<>();
+  }
+
+  /**
+   * Pushes the frame of a state, unless the state is a known dead end or already on the stack. The moves of
+   * the state which do not crash are examined in the order of {@link PositionVector.Direction}, up to the first
+   * one which wins.
+   */
+  private void enter(int x, int y, int velocityX, int velocityY) {
+    long key = pathFinder.stateKey(x, y, velocityX, velocityY);
+    if (deadEnds.contains(key)) {
+      deadEndHits++;
+      return;
+    }
+    if (onStack.get(key, NOT_ON_STACK) != NOT_ON_STACK) {
+      return;
+    }
+    onStack.put(key, depth);
+    deadEndMisses++;
+    if (frames.length == depth * FRAME_SIZE) {
+      frames = Arrays.copyOf(frames, 2 * frames.length);
+    }
+    int frame = depth++ * FRAME_SIZE;
+    frames[frame + X] = x;
+    frames[frame + Y] = y;
+    frames[frame + VX] = velocityX;
+    frames[frame + VY] = velocityY;
+    frames[frame + NEXT_MOVE] = 0;
+    frames[frame + FINISH_MOVE] = NO_MOVE;
+    PositionVector location = new PositionVector(x, y);
+    int legalMoves = pathFinder.legalMoves(x, y, velocityX, velocityY);
+    int moveCount = 0;
+    for (PositionVector.Direction move : DIRECTIONS) {
+      if ((legalMoves & (1 << move.ordinal())) == 0) continue;
+      PositionVector nextPosition = new PositionVector(x + velocityX + move.vector.getX(), y + velocityY + move.vector.getY());
+      if (pathFinder.willFinish(location, nextPosition)) {
+        frames[frame + FINISH_MOVE] = move.ordinal();
+        break;
+      }
+      if (pathFinder.crossesFinishLine(location, nextPosition) || viabilityKernel != null && viabilityKernel.isDoomed(
+              nextPosition.getX(), nextPosition.getY(), velocityX + move.vector.getX(), velocityY + move.vector.getY())) {
+        continue;
+      }
+      generatedNodes++;
+      insertByDistance(frame, moveCount++, move.ordinal(),
+              pathFinder.getDistanceGrid(nextPosition.getX(), nextPosition.getY()));
+    }
+    frames[frame + MOVE_COUNT] = moveCount;
+  }
+
+  /**
+   * Inserts a move behind all moves with the same or a smaller distance, so moves of equal distance keep
+   * the order of {@link PositionVector.Direction}.
+   */
+  private void insertByDistance(int frame, int moveCount, int move, int distance) {
+    int index = moveCount;
+    while (index > 0 && distances[index - 1] > distance) {
+      distances[index] = distances[index - 1];
+      frames[frame + MOVES + index] = frames[frame + MOVES + index - 1];
+      index--;
+    }
+    distances[index] = distance;
+    frames[frame + MOVES + index] = move;
+  }
+
+  /**
+   * @return the moves taken by the frames on the stack, followed by the winning move of the top frame
+   */
+  private List<PositionVector.Direction> route() {
+    List<PositionVector.Direction> route = new ArrayList<>(depth);
+    for (int frame = 0; frame < (depth - 1) * FRAME_SIZE; frame += FRAME_SIZE) {
+      route.add(DIRECTIONS[frames[frame + MOVES + frames[frame + NEXT_MOVE] - 1]]);
+    }
+    route.add(DIRECTIONS[frames[(depth - 1) * FRAME_SIZE + FINISH_MOVE]]);
+    return route;
+  }
+
+  /**
+   * @return number of states whose moves were examined
+   */
+  long getExpandedNodes() {
+    return deadEndMisses;
+  }
+
+  /**
+   * @return number of moves which neither crashed nor won
+   */
+  long getGeneratedNodes() {
+    return generatedNodes;
+  }
+
+  /**
+   * @return number of states skipped because they were already known as dead ends
+   */
+  long getDeadEndHits() {
+    return deadEndHits;
+  }
+
+  /**
+   * @return number of states explored because they were not known as dead ends
+   */
+  long getDeadEndMisses() {
+    return deadEndMisses;
+  }
+
+  /**
+   * @return true if the search was aborted because it reached the maximum search depth
+   */
+  boolean isAborted() {
+    return aborted;
+  }
+}
@@ -0,0 +1,119 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of the distance grids of the {@link PathFinderStrategy}.
+ *
+ * <p>The distance grid only depends on the board, so all path finders on the same track can share one grid.
+ * Grids are looked up by the dimensions and the content hash of the board, see
+ * {@link ch.zhaw.pm2.racetrack.game.TrackLayout#getContentHash()}. The cache holds at most a given number
+ * of spaces in total; when a new grid exceeds it, the least recently used grids are evicted. A grid larger than
+ * the whole cache is not cached.</p>
+ *
+ * <p>Cached grids are shared and must not be modified. The cache is thread safe, a grid requested by several
+ * threads at once may be computed more than once.</p>
+ */
+public final class DistanceFieldCache {
+  /**
+   * Default capacity of the {@link #shared() shared cache}, 16 million spaces or 64 MB of distances.
+   */
+  public static final long DEFAULT_MAX_CELLS = 1L << 24;
+  private static final DistanceFieldCache SHARED = new DistanceFieldCache(DEFAULT_MAX_CELLS);
+
+  private final long maxCells;
+  private final Map<Key, int[][]> grids = new LinkedHashMap<>(16, 0.75f, true);
+  private long cells;
+  private long hits;
+  private long misses;
+
+  private record Key(int width, int height, long contentHash) {
+  }
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxCells maximum number of spaces of all cached grids together
+   */
+  public DistanceFieldCache(long maxCells) {
+    this.maxCells = maxCells;
+  }
+
+  /**
+   * @return the cache shared by all path finders of this process
+   */
+  public static DistanceFieldCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns the cached distance grid of a board, computing and caching it if it is not cached yet.
+   *
+   * @param width       number of columns of the board
+   * @param height      number of rows of the board
+   * @param contentHash content hash of the board
+   * @param computation computes the distance grid, indexed [x][y], if it is not cached
+   * @return the distance grid, shared with other path finders on the same board
+   */
+  public int[][] get(int width, int height, long contentHash, Supplier<int[][]> computation) {
+    Key key = new Key(width, height, contentHash);
+    synchronized (this) {
+      int[][] grid = grids.get(key);
+      if (grid != null) {
+        hits++;
+        return grid;
+      }
+      misses++;
+    }
+    int[][] grid = computation.get();
+    put(key, grid);
+    return grid;
+  }
+
+  private synchronized void put(Key key, int[][] grid) {
+    long size = (long) key.width() * key.height();
+    if (size > maxCells || grids.containsKey(key)) {
+      return;
+    }
+    Iterator<Map.Entry<Key, int[][]>> eldest = grids.entrySet().iterator();
+    while (cells + size > maxCells) {
+      Key evicted = eldest.next().getKey();
+      cells -= (long) evicted.width() * evicted.height();
+      eldest.remove();
+    }
+    grids.put(key, grid);
+    cells += size;
+  }
+
+  /**
+   * Removes all grids from the cache.
+   */
+  public synchronized void clear() {
+    grids.clear();
+    cells = 0;
+  }
+
+  /**
+   * @return number of cached grids
+   */
+  public synchronized int size() {
+    return grids.size();
+  }
+
+  /**
+   * @return number of requests answered from the cache
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return number of requests which computed the grid
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+}
@@ -0,0 +1,62 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes a distance field on a grid: the number of steps (8 neighbours per cell) from every reachable
+ * cell to the nearest source cell.
+ *
+ * <p>The grid is indexed [x][y] and filled in place. Cells holding the source distance are the sources,
+ * cells holding {@link #FREE} are filled with the source distance plus their distance to the nearest
+ * source, all other values block the way and are left unchanged, as are free cells which can not be
+ * reached. Every engine produces the same result.</p>
+ */
+public interface DistanceFieldEngine {
+  /**
+   * Value of a free cell which has not been reached yet.
+   */
+  int FREE = 0;
+
+  /**
+   * Fills the free cells of the grid with their distance.
+   *
+   * @param distanceGrid   grid indexed [x][y], filled in place
+   * @param sourceDistance value of the source cells, must not be {@link #FREE}
+   */
+  void fill(int[][] distanceGrid, int sourceDistance);
+
+  /**
+   * @return an engine for tracks with few walls and large open areas, see {@link WavefrontDistanceFieldEngine}
+   */
+  static DistanceFieldEngine wavefront() {
+    return new WavefrontDistanceFieldEngine();
+  }
+
+  /**
+   * @return an engine visiting one cell at a time, see {@link QueueDistanceFieldEngine}
+   */
+  static DistanceFieldEngine queue() {
+    return new QueueDistanceFieldEngine();
+  }
+
+  /**
+   * @return an engine expanding each level on all cores of the common pool, see {@link ParallelDistanceFieldEngine}
+   */
+  static DistanceFieldEngine parallel() {
+    return new ParallelDistanceFieldEngine();
+  }
+
+  /**
+   * Chooses the engine for a grid of the given size.
+   *
+   * @param cells             number of cells of the grid
+   * @param parallelThreshold number of cells from which on the field is computed in parallel,
+   *                          see {@link ch.zhaw.pm2.racetrack.Config#getParallelDistanceFieldThreshold()}
+   * @return the parallel engine for grids of at least the threshold size if more than one processor is
+   * available, the wavefront engine otherwise
+   */
+  static DistanceFieldEngine forSize(long cells, long parallelThreshold) {
+    boolean multiCore = ForkJoinPool.getCommonPoolParallelism() > 1;
+    return multiCore && cells >= parallelThreshold ? parallel() : wavefront();
+  }
+}
@@ -0,0 +1,528 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.game.Car;
+import ch.zhaw.pm2.racetrack.game.LineWalker;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.Track;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the route of a car valid while other cars get in its way. Instead of searching again from scratch,
+ * the route is repaired incrementally in the style of LPA* and D* Lite.
+ *
+ * <p>The {@link PolicyTable} of the track is the result of one complete backward search. It holds the fewest
+ * turns to the finish line of every reachable state on the empty track. Like the g-values of D* Lite, these
+ * values stay exact as long as no car blocks the route of a state, and they never overestimate when cars do.
+ * In every turn the planner checks the remaining route against the positions of the other cars. If the car
+ * left the route or a car blocks it, only the affected part is searched again. The repair searches from the
+ * current state, ordered by the turns taken plus the table value, and stops at the first state whose table
+ * route is clear. Its value is exact, so the repaired route is the fastest one around the cars. Usually only a
+ * handful of states next to the blocked spaces are expanded.</p>
+ *
+ * <p>Cars which are still racing move on, so they only block the next {@link #BLOCKING_TURNS} moves. Crashed
+ * cars stay where they are and block all moves. A repair expands at most {@link #MAX_REPAIR_EXPANSIONS}
+ * states. If it finds no route around the cars, the car takes the first move towards the state closest to
+ * the finish line and repairs again in the next turn.</p>
+ *
+ * <p>On a track, the planner books its route in the {@link ReservationTable} of the track whenever it changes.
+ * The spaces other cars booked for a turn block the moves in that turn, so the cars planning later drive
+ * around the routes of the cars which planned before them. Like in windowed cooperative A*, only the next
+ * {@link #BOOKED_TURNS} moves are checked against the bookings. Later bookings are likely to change before the
+ * car gets there, and the window keeps the repairs small. The turns of the bookings are counted by the table,
+ * and the plan is booked again after the table was reset for a new race.</p>
+ */
+class IncrementalPlanner {
+  /**
+   * Number of moves of the route which are checked against the cars still racing.
+   */
+  static final int BLOCKING_TURNS = 2;
+  /**
+   * Maximum number of states expanded by one repair.
+   */
+  static final int MAX_REPAIR_EXPANSIONS = 20_000;
+  /**
+   * Number of moves of the route which are checked against the bookings of the other cars.
+   */
+  static final int BOOKED_TURNS = 8;
+  /**
+   * Estimate of a state from which the finish line can not be reached.
+   */
+  private static final int UNREACHABLE = Integer.MAX_VALUE;
+  private static final int NO_PARENT = -1;
+  private static final int NOT_BOOKED = -1;
+  /**
+   * Fields of a node of the repair search, stored one after the other in {@link #nodes}.
+   */
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int VX = 2;
+  private static final int VY = 3;
+  private static final int TURNS = 4;
+  private static final int PARENT = 5;
+  private static final int MOVE = 6;
+  private static final int ESTIMATE = 7;
+  private static final int NODE_SIZE = 8;
+  private static final int PRIORITY_SHIFT = 48;
+  private static final int TIE_BREAK_SHIFT = 32;
+  private static final int MAX_TIE_BREAK = 0xffff;
+  private static final PositionVector.Direction[] DIRECTIONS = PositionVector.Direction.values();
+
+  private final PathFinderStrategy pathFinder;
+  private final PolicyTable policyTable;
+  private final LineWalker lineWalker = new LineWalker();
+  /**
+   * Position and velocity before each move of the route, four ints per move.
+   */
+  private int[] planStates = new int[4 * 64];
+  private byte[] planMoves = new byte[64];
+  private int planLength;
+  private int planIndex;
+  /**
+   * Positions of the cars still racing and of the crashed cars, two ints per car.
+   */
+  private int[] racingCars = new int[8];
+  private int racingCarCount;
+  private int[] crashedCars = new int[8];
+  private int crashedCarCount;
+  /**
+   * Number of moves of a route which can be blocked, all of them if there is a crashed car.
+   */
+  private int checkedTurns;
+  private ReservationTable reservations;
+  private boolean hasBookingsOfOtherCars;
+  private char carId;
+  /**
+   * Turn of the race in which the car makes its next move, counted by the reservation table.
+   */
+  private int raceTurn;
+  /**
+   * Race of the reservation table in which the plan was booked, {@link #NOT_BOOKED} if the plan changed since.
+   */
+  private int bookedRace = NOT_BOOKED;
+  private int[] nodes = new int[NODE_SIZE * 256];
+  private int nodeCount;
+  private long[] open = new long[256];
+  private int openSize;
+  private long replanCount;
+  private long repairedNodes;
+  private long replanTime;
+
+  /**
+   * @param pathFinder  the path finder providing the distance grid and the move checks
+   * @param policyTable the table of the track, holding the turns to go on the empty track
+   * @param location    start position of the car, the plan starts with the table route from there
+   * @param velocity    start velocity of the car
+   */
+  IncrementalPlanner(PathFinderStrategy pathFinder, PolicyTable policyTable, PositionVector location,
+                     PositionVector velocity) {
+    this.pathFinder = pathFinder;
+    this.policyTable = policyTable;
+    int state = policyTable.indexOf(location.getX(), location.getY(), velocity.getX(), velocity.getY());
+    if (state != PolicyTable.NO_STATE && policyTable.getTurnsToGo(state) != 0) {
+      setPlan(addNode(location.getX(), location.getY(), velocity.getX(), velocity.getY(), 0, NO_PARENT, 0,
+              policyTable.getTurnsToGo(state)), state);
+    }
+  }
+
+  /**
+   * Returns the next move of a car. The remaining route is checked against the other cars on the track first,
+   * and repaired if the car left it or a car blocks it.
+   *
+   * @param car   the car
+   * @param track the track of the car, null if the car races alone
+   * @return the next move, {@link PositionVector.Direction#NONE} if the finish line can not be reached
+   */
+  PositionVector.Direction nextMove(Car car, Track track) {
+    carId = car.getId();
+    if (track != null && reservations == null) {
+      reservations = ReservationTable.of(track);
+    }
+    if (reservations != null) {
+      raceTurn = reservations.getNextTurn(carId);
+    }
+    collectCars(car, track);
+    int x = car.getPosition().getX();
+    int y = car.getPosition().getY();
+    int velocityX = car.getVelocity().getX();
+    int velocityY = car.getVelocity().getY();
+    if (!isOnPlan(x, y, velocityX, velocityY) || !isPlanClear()) {
+      long startTime = System.nanoTime();
+      replanCount++;
+      repair(x, y, velocityX, velocityY);
+      replanTime += System.nanoTime() - startTime;
+      bookedRace = NOT_BOOKED;
+    }
+    if (reservations != null) {
+      if (bookedRace != reservations.getRace()) {
+        bookPlan();
+        bookedRace = reservations.getRace();
+      }
+      reservations.recordMove(carId);
+    }
+    if (planIndex == planLength) {
+      return PositionVector.Direction.NONE;
+    }
+    return DIRECTIONS[planMoves[planIndex++]];
+  }
+
+  private void collectCars(Car car, Track track) {
+    racingCarCount = 0;
+    crashedCarCount = 0;
+    hasBookingsOfOtherCars = false;
+    checkedTurns = BLOCKING_TURNS;
+    if (track == null) {
+      return;
+    }
+    for (int carIndex = 0; carIndex < track.getCarCount(); carIndex++) {
+      Car other = track.getCar(carIndex);
+      if (other.getId() == car.getId()) {
+        continue;
+      }
+      if (other.isCrashed()) {
+        crashedCars = addCar(crashedCars, crashedCarCount++, other.getPosition());
+        reservations.release(other.getId());
+      } else {
+        racingCars = addCar(racingCars, racingCarCount++, other.getPosition());
+      }
+    }
+    hasBookingsOfOtherCars = reservations.hasBookingsOfOtherCars(carId);
+    if (crashedCarCount > 0) {
+      checkedTurns = Integer.MAX_VALUE;
+    } else if (hasBookingsOfOtherCars) {
+      checkedTurns = BOOKED_TURNS;
+    }
+  }
+
+  private static int[] addCar(int[] cars, int index, PositionVector position) {
+    if (2 * index == cars.length) {
+      cars = Arrays.copyOf(cars, 2 * cars.length);
+    }
+    cars[2 * index] = position.getX();
+    cars[2 * index + 1] = position.getY();
+    return cars;
+  }
+
+  private boolean isOnPlan(int x, int y, int velocityX, int velocityY) {
+    return planIndex < planLength && planStates[4 * planIndex] == x && planStates[4 * planIndex + 1] == y
+            && planStates[4 * planIndex + 2] == velocityX && planStates[4 * planIndex + 3] == velocityY;
+  }
+
+  private boolean isPlanClear() {
+    for (int index = planIndex; index < planLength; index++) {
+      int turn = index - planIndex;
+      if (turn >= checkedTurns) {
+        return true;
+      }
+      if (isBlocked(planStates[4 * index], planStates[4 * index + 1], planEndX(index), planEndY(index), turn)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Replaces the bookings of the car by the remaining moves of the plan.
+   */
+  private void bookPlan() {
+    reservations.release(carId);
+    for (int index = planIndex; index < planLength; index++) {
+      reservations.book(carId, planStates[4 * index], planStates[4 * index + 1], planEndX(index), planEndY(index),
+              raceTurn + index - planIndex);
+    }
+  }
+
+  private int planEndX(int index) {
+    return planStates[4 * index] + planStates[4 * index + 2] + DIRECTIONS[planMoves[index]].vector.getX();
+  }
+
+  private int planEndY(int index) {
+    return planStates[4 * index + 1] + planStates[4 * index + 3] + DIRECTIONS[planMoves[index]].vector.getY();
+  }
+
+  /**
+   * @param turn number of turns from now at which the car makes the move
+   * @return true if a car stands on the line of the move or another car booked a space of it for the turn
+   */
+  private boolean isBlocked(int startX, int startY, int endX, int endY, int turn) {
+    return turn < BLOCKING_TURNS && hitsCar(racingCars, racingCarCount, startX, startY, endX, endY)
+            || hitsCar(crashedCars, crashedCarCount, startX, startY, endX, endY)
+            || hasBookingsOfOtherCars && turn < BOOKED_TURNS
+            && !reservations.isFree(carId, startX, startY, endX, endY, raceTurn + turn);
+  }
+
+  private boolean hitsCar(int[] cars, int carCount, int startX, int startY, int endX, int endY) {
+    for (int index = 0; index < carCount; index++) {
+      int carX = cars[2 * index];
+      int carY = cars[2 * index + 1];
+      if (carX < Math.min(startX, endX) || carX > Math.max(startX, endX)
+              || carY < Math.min(startY, endY) || carY > Math.max(startY, endY)) {
+        continue;
+      }
+      LineWalker line = lineWalker.start(startX, startY, endX, endY);
+      while (line.next()) {
+        if (line.getX() == carX && line.getY() == carY) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Searches from the current state to the first state whose table route is clear, ordered by the turns
+   * taken plus the turns to go of the table, and replaces the plan by the route found. If there is none, the
+   * plan leads to the expanded state with the fewest turns to go, it is empty if that is the current state.
+   */
+  private void repair(int x, int y, int velocityX, int velocityY) {
+    planLength = 0;
+    planIndex = 0;
+    int estimate = estimate(x, y, velocityX, velocityY);
+    if (estimate == UNREACHABLE) {
+      return;
+    }
+    nodeCount = 0;
+    openSize = 0;
+    LongIntHashMap bestNodes = new LongIntHashMap();
+    int start = addNode(x, y, velocityX, velocityY, 0, NO_PARENT, 0, estimate);
+    bestNodes.put(searchKey(x, y, velocityX, velocityY, 0), start);
+    push(start);
+    int closest = start;
+    int expansions = 0;
+    while (openSize > 0 && expansions < MAX_REPAIR_EXPANSIONS) {
+      int node = pop();
+      if (nodes[node + ESTIMATE] == 0) {
+        setPlan(node, PolicyTable.NO_STATE);
+        return;
+      }
+      if (bestNodes.get(searchKey(nodes[node + X], nodes[node + Y], nodes[node + VX], nodes[node + VY],
+              nodes[node + TURNS]), NO_PARENT) != node) {
+        continue;
+      }
+      int state = policyTable.indexOf(nodes[node + X], nodes[node + Y], nodes[node + VX], nodes[node + VY]);
+      if (state != PolicyTable.NO_STATE && policyTable.getTurnsToGo(state) != 0
+              && walkTableRoute(state, node, false)) {
+        setPlan(node, state);
+        return;
+      }
+      if (nodes[node + ESTIMATE] < nodes[closest + ESTIMATE]) {
+        closest = node;
+      }
+      expansions++;
+      repairedNodes++;
+      expand(node, bestNodes);
+    }
+    setPlan(closest, PolicyTable.NO_STATE);
+  }
+
+  private void expand(int node, LongIntHashMap bestNodes) {
+    int x = nodes[node + X];
+    int y = nodes[node + Y];
+    int turn = nodes[node + TURNS];
+    PositionVector location = new PositionVector(x, y);
+    int legalMoves = pathFinder.legalMoves(x, y, nodes[node + VX], nodes[node + VY]);
+    for (PositionVector.Direction direction : DIRECTIONS) {
+      if ((legalMoves & (1 << direction.ordinal())) == 0) {
+        continue;
+      }
+      int velocityX = nodes[node + VX] + direction.vector.getX();
+      int velocityY = nodes[node + VY] + direction.vector.getY();
+      PositionVector nextPosition = new PositionVector(x + velocityX, y + velocityY);
+      if (isBlocked(x, y, nextPosition.getX(), nextPosition.getY(), turn)) {
+        continue;
+      }
+      if (pathFinder.willFinish(location, nextPosition)) {
+        push(addNode(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY, turn + 1, node,
+                direction.ordinal(), 0));
+        continue;
+      }
+      if (pathFinder.getDistanceGrid(nextPosition.getX(), nextPosition.getY()) == DistanceFieldEngine.FREE
+              || pathFinder.crossesFinishLine(location, nextPosition)) {
+        continue;
+      }
+      int estimate = estimate(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY);
+      if (estimate == UNREACHABLE) {
+        continue;
+      }
+      long key = searchKey(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY, turn + 1);
+      int known = bestNodes.get(key, NO_PARENT);
+      if (known != NO_PARENT && nodes[known + TURNS] <= turn + 1) {
+        continue;
+      }
+      int child = addNode(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY, turn + 1, node,
+              direction.ordinal(), estimate);
+      bestNodes.put(key, child);
+      push(child);
+    }
+  }
+
+  /**
+   * @return the turns to go of the table, or the lower bound of the heuristic for states the table does
+   * not know
+   */
+  private int estimate(int x, int y, int velocityX, int velocityY) {
+    int state = policyTable.indexOf(x, y, velocityX, velocityY);
+    if (state == PolicyTable.NO_STATE) {
+      return TurnsToGoHeuristic.estimate(pathFinder, x, y, velocityX, velocityY);
+    }
+    int turnsToGo = policyTable.getTurnsToGo(state);
+    return turnsToGo == 0 ? UNREACHABLE : turnsToGo;
+  }
+
+  /**
+   * The cars still racing only block the first turns, so a state is searched once per turn up to
+   * {@link #BLOCKING_TURNS} and once for all later turns. With bookings of other cars, this holds for
+   * {@link #BOOKED_TURNS}.
+   */
+  private long searchKey(int x, int y, int velocityX, int velocityY, int turns) {
+    int lastTurn = hasBookingsOfOtherCars ? BOOKED_TURNS : BLOCKING_TURNS;
+    return pathFinder.stateKey(x, y, velocityX, velocityY) * (BOOKED_TURNS + 1) + Math.min(turns, lastTurn);
+  }
+
+  /**
+   * Follows the table from the state of a node to the finish line.
+   *
+   * @param state  index of the state of the node in the table, with a route
+   * @param node   the node, its turns are the turns from now at which the car reaches the state
+   * @param append true to append the route to the plan instead of checking it
+   * @return true if no car stands on the route
+   */
+  private boolean walkTableRoute(int state, int node, boolean append) {
+    int x = nodes[node + X];
+    int y = nodes[node + Y];
+    int velocityX = nodes[node + VX];
+    int velocityY = nodes[node + VY];
+    for (int turn = nodes[node + TURNS]; state != PolicyTable.NO_STATE; turn++) {
+      if (!append && turn >= checkedTurns) {
+        return true;
+      }
+      int move = policyTable.getMove(state);
+      int nextVelocityX = velocityX + DIRECTIONS[move].vector.getX();
+      int nextVelocityY = velocityY + DIRECTIONS[move].vector.getY();
+      if (append) {
+        appendToPlan(x, y, velocityX, velocityY, move);
+      } else if (isBlocked(x, y, x + nextVelocityX, y + nextVelocityY, turn)) {
+        return false;
+      }
+      if (policyTable.getTurnsToGo(state) == 1) {
+        return true;
+      }
+      velocityX = nextVelocityX;
+      velocityY = nextVelocityY;
+      x += velocityX;
+      y += velocityY;
+      state = policyTable.indexOf(x, y, velocityX, velocityY);
+    }
+    return false;
+  }
+
+  /**
+   * Replaces the plan by the moves from the current state to a node, followed by the table route of its
+   * state if there is one.
+   */
+  private void setPlan(int node, int state) {
+    planIndex = 0;
+    planLength = 0;
+    int turns = nodes[node + TURNS];
+    for (int move = 0; move < turns; move++) {
+      appendToPlan(0, 0, 0, 0, 0);
+    }
+    for (int child = node; nodes[child + PARENT] != NO_PARENT; child = nodes[child + PARENT]) {
+      int parent = nodes[child + PARENT];
+      int index = nodes[child + TURNS] - 1;
+      System.arraycopy(nodes, parent + X, planStates, 4 * index, 4);
+      planMoves[index] = (byte) nodes[child + MOVE];
+    }
+    if (state != PolicyTable.NO_STATE) {
+      walkTableRoute(state, node, true);
+    }
+  }
+
+  private void appendToPlan(int x, int y, int velocityX, int velocityY, int move) {
+    if (planLength == planMoves.length) {
+      planMoves = Arrays.copyOf(planMoves, 2 * planLength);
+      planStates = Arrays.copyOf(planStates, 8 * planLength);
+    }
+    planStates[4 * planLength] = x;
+    planStates[4 * planLength + 1] = y;
+    planStates[4 * planLength + 2] = velocityX;
+    planStates[4 * planLength + 3] = velocityY;
+    planMoves[planLength++] = (byte) move;
+  }
+
+  /**
+   * @return number of turns in which the plan had to be repaired
+   */
+  long getReplanCount() {
+    return replanCount;
+  }
+
+  /**
+   * @return number of states expanded by all repairs
+   */
+  long getRepairedNodes() {
+    return repairedNodes;
+  }
+
+  /**
+   * @return time spent repairing the plan, in nanoseconds
+   */
+  long getReplanTime() {
+    return replanTime;
+  }
+
+  private int addNode(int x, int y, int velocityX, int velocityY, int turns, int parent, int move, int estimate) {
+    if (nodeCount == nodes.length) {
+      nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+    }
+    int node = nodeCount;
+    nodes[node + X] = x;
+    nodes[node + Y] = y;
+    nodes[node + VX] = velocityX;
+    nodes[node + VY] = velocityY;
+    nodes[node + TURNS] = turns;
+    nodes[node + PARENT] = parent;
+    nodes[node + MOVE] = move;
+    nodes[node + ESTIMATE] = estimate;
+    nodeCount += NODE_SIZE;
+    return node;
+  }
+
+  /**
+   * Adds a node to the open list, ordered by its estimated total number of turns and, among equal estimates,
+   * by its turns to go. The node offset fills the lower bits of the entry.
+   */
+  private void push(int node) {
+    int estimate = nodes[node + ESTIMATE];
+    long entry = ((long) (nodes[node + TURNS] + estimate) << PRIORITY_SHIFT)
+            | ((long) Math.min(estimate, MAX_TIE_BREAK) << TIE_BREAK_SHIFT) | (node / NODE_SIZE);
+    if (openSize == open.length) {
+      open = Arrays.copyOf(open, 2 * openSize);
+    }
+    int index = openSize++;
+    while (index > 0 && open[(index - 1) / 2] > entry) {
+      open[index] = open[(index - 1) / 2];
+      index = (index - 1) / 2;
+    }
+    open[index] = entry;
+  }
+
+  private int pop() {
+    long first = open[0];
+    long last = open[--openSize];
+    int index = 0;
+    while (2 * index + 1 < openSize) {
+      int child = 2 * index + 1;
+      if (child + 1 < openSize && open[child + 1] < open[child]) {
+        child++;
+      }
+      if (open[child] >= last) {
+        break;
+      }
+      open[index] = open[child];
+      index = child;
+    }
+    open[index] = last;
+    return (int) first * NODE_SIZE;
+  }
+}
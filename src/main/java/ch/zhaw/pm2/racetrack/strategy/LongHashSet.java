@@ -0,0 +1,96 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import java.util.Arrays;
+
+/**
+ * Hash set of non-negative {@code long} values, using open addressing with linear probing on a primitive
+ * array, see {@link LongIntHashMap}.
+ */
+class LongHashSet {
+  private static final long EMPTY = -1;
+  private static final int MIN_CAPACITY = 16;
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+  private long[] values;
+  private int size;
+  private int shift;
+
+  /**
+   * Creates an empty set.
+   */
+  LongHashSet() {
+    allocate(MIN_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    values = new long[capacity];
+    Arrays.fill(values, EMPTY);
+    shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  /**
+   * @param value a non-negative value
+   * @return true if the value is in the set
+   */
+  boolean contains(long value) {
+    int mask = values.length - 1;
+    for (int slot = slot(value); ; slot = (slot + 1) & mask) {
+      if (values[slot] == value) {
+        return true;
+      }
+      if (values[slot] == EMPTY) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * @param value a non-negative value
+   * @return true if the value was added, false if it already was in the set
+   */
+  boolean add(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("The value must not be negative");
+    }
+    if (2 * (size + 1) > values.length) {
+      grow();
+    }
+    int mask = values.length - 1;
+    int slot = slot(value);
+    while (values[slot] != EMPTY) {
+      if (values[slot] == value) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    values[slot] = value;
+    size++;
+    return true;
+  }
+
+  /**
+   * @return the number of values in the set
+   */
+  int size() {
+    return size;
+  }
+
+  private int slot(long value) {
+    return (int) ((value * GOLDEN_RATIO) >>> shift);
+  }
+
+  private void grow() {
+    long[] oldValues = values;
+    allocate(2 * oldValues.length);
+    int mask = values.length - 1;
+    for (long value : oldValues) {
+      if (value != EMPTY) {
+        int slot = slot(value);
+        while (values[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        values[slot] = value;
+      }
+    }
+  }
+}
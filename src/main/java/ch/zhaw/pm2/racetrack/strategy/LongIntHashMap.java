@@ -0,0 +1,140 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from non-negative {@code long} keys to {@code int} values, using open addressing with linear
+ * probing on primitive arrays. The search algorithms of the path finder store millions of states, which
+ * would cost an object per entry in a {@link java.util.HashMap}.
+ */
+class LongIntHashMap {
+  private static final long EMPTY = -1;
+  private static final int MIN_CAPACITY = 16;
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+  private int shift;
+
+  /**
+   * Creates an empty map.
+   */
+  LongIntHashMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  /**
+   * @param key          a non-negative key
+   * @param defaultValue value returned if the key is not in the map
+   * @return the value of the key, or the default value
+   */
+  int get(long key, int defaultValue) {
+    int mask = keys.length - 1;
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      if (keys[slot] == EMPTY) {
+        return defaultValue;
+      }
+    }
+  }
+
+  /**
+   * Adds the key or replaces its value.
+   *
+   * @param key   a non-negative key
+   * @param value the value
+   */
+  void put(long key, int value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("The key must not be negative");
+    }
+    if (2 * (size + 1) > keys.length) {
+      grow();
+    }
+    int mask = keys.length - 1;
+    int slot = slot(key);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+  }
+
+  /**
+   * Removes a key. The keys following it in its probe sequence are moved back into the gap, so no marker
+   * for removed keys is needed.
+   *
+   * @param key a non-negative key
+   * @return true if the key was in the map
+   */
+  boolean remove(long key) {
+    int mask = keys.length - 1;
+    int gap = slot(key);
+    while (keys[gap] != key) {
+      if (keys[gap] == EMPTY) {
+        return false;
+      }
+      gap = (gap + 1) & mask;
+    }
+    for (int slot = (gap + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+      int home = slot(keys[slot]);
+      if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+        keys[gap] = keys[slot];
+        values[gap] = values[slot];
+        gap = slot;
+      }
+    }
+    keys[gap] = EMPTY;
+    size--;
+    return true;
+  }
+
+  /**
+   * Removes all keys and shrinks the map to its initial capacity.
+   */
+  void clear() {
+    allocate(MIN_CAPACITY);
+    size = 0;
+  }
+
+  /**
+   * @return the number of keys in the map
+   */
+  int size() {
+    return size;
+  }
+
+  private int slot(long key) {
+    return (int) ((key * GOLDEN_RATIO) >>> shift);
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(2 * oldKeys.length);
+    int mask = keys.length - 1;
+    for (int index = 0; index < oldKeys.length; index++) {
+      if (oldKeys[index] != EMPTY) {
+        int slot = slot(oldKeys[index]);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[index];
+        values[slot] = oldValues[index];
+      }
+    }
+  }
+}
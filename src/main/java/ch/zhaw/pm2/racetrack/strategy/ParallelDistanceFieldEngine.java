@@ -0,0 +1,136 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Distance field engine running a level synchronous breadth first search on a {@link ForkJoinPool}.
+ *
+ * <p>The frontier of each distance level is split into chunks which are expanded in parallel. A free
+ * neighbour is claimed with a compare-and-set from {@link #FREE} to its distance, so every cell is added
+ * to exactly one chunk of the next frontier. Since all cells of a level get the same distance no matter
+ * which chunk claims them, the result is the same as the one of the sequential engines. Small frontiers
+ * are expanded on the calling thread.</p>
+ */
+public class ParallelDistanceFieldEngine implements DistanceFieldEngine {
+  private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(int[].class);
+  /**
+   * Number of frontier cells expanded by one task.
+   */
+  private static final int CHUNK_SIZE = 1024;
+
+  private final ForkJoinPool pool;
+
+  /**
+   * Creates an engine running on the common pool.
+   */
+  public ParallelDistanceFieldEngine() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates an engine running on the given pool.
+   *
+   * @param pool the pool running the expansion tasks, its parallelism limits the number of threads
+   */
+  public ParallelDistanceFieldEngine(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public void fill(int[][] distanceGrid, int sourceDistance) {
+    if (sourceDistance == FREE) {
+      throw new IllegalArgumentException("The source distance must not be the value of a free cell");
+    }
+    int width = distanceGrid.length;
+    int height = distanceGrid[0].length;
+    Frontier frontier = new Frontier();
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        if (distanceGrid[x][y] == sourceDistance) {
+          frontier.add(x * height + y);
+        }
+      }
+    }
+    int distance = sourceDistance;
+    while (frontier.size > 0) {
+      distance++;
+      frontier = pool.invoke(new ExpandTask(distanceGrid, frontier.cells, 0, frontier.size, distance));
+    }
+  }
+
+  /**
+   * Expands a range of the frontier cells and returns the cells it claimed for the next level.
+   */
+  private static class ExpandTask extends RecursiveTask<Frontier> {
+    private static final long serialVersionUID = 1L;
+
+    private final int[][] distanceGrid;
+    private final int[] frontier;
+    private final int from;
+    private final int to;
+    private final int distance;
+
+    ExpandTask(int[][] distanceGrid, int[] frontier, int from, int to, int distance) {
+      this.distanceGrid = distanceGrid;
+      this.frontier = frontier;
+      this.from = from;
+      this.to = to;
+      this.distance = distance;
+    }
+
+    @Override
+    protected Frontier compute() {
+      if (to - from > CHUNK_SIZE) {
+        int middle = (from + to) >>> 1;
+        ExpandTask upper = new ExpandTask(distanceGrid, frontier, middle, to, distance);
+        upper.fork();
+        Frontier lower = new ExpandTask(distanceGrid, frontier, from, middle, distance).compute();
+        return lower.addAll(upper.join());
+      }
+      int width = distanceGrid.length;
+      int height = distanceGrid[0].length;
+      Frontier next = new Frontier();
+      for (int index = from; index < to; index++) {
+        int x = frontier[index] / height;
+        int y = frontier[index] % height;
+        for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++) {
+          int[] column = distanceGrid[i];
+          for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++) {
+            if (column[j] == FREE && CELLS.compareAndSet(column, j, FREE, distance)) {
+              next.add(i * height + j);
+            }
+          }
+        }
+      }
+      return next;
+    }
+  }
+
+  /**
+   * Growable list of cell indices.
+   */
+  private static class Frontier {
+    private int[] cells = new int[16];
+    private int size;
+
+    void add(int cell) {
+      if (size == cells.length) {
+        cells = Arrays.copyOf(cells, 2 * size);
+      }
+      cells[size++] = cell;
+    }
+
+    Frontier addAll(Frontier other) {
+      if (size + other.size > cells.length) {
+        cells = Arrays.copyOf(cells, Math.max(2 * cells.length, size + other.size));
+      }
+      System.arraycopy(other.cells, 0, cells, size, other.size);
+      size += other.size;
+      return this;
+    }
+  }
+}
@@ -1,46 +1,248 @@
 package ch.zhaw.pm2.racetrack.strategy;
 
-import ch.zhaw.pm2.racetrack.game.BresenhamAlgorithm;
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.game.Car;
+import ch.zhaw.pm2.racetrack.game.LegalMoveTable;
+import ch.zhaw.pm2.racetrack.game.LineWalker;
 import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.SpaceMask;
+import ch.zhaw.pm2.racetrack.game.SpaceSums;
+import ch.zhaw.pm2.racetrack.game.Track;
+import ch.zhaw.pm2.racetrack.game.TrackLayout;
 import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**The Pathfinder class finds a set of moves to find a path towards the finish line. There must be
  * a way for the car to find its way to the finish line. */
 public class PathFinderStrategy implements MoveStrategy {
 
+  /**
+   * The search algorithm used to plan the route.
+   */
+  public enum PlanningMode {
+    /**
+     * Greedy depth first search, trying the moves closest to the finish line first.
+     * Finds a route quickly on open tracks, but not the shortest one, see {@link DepthFirstPlanner}.
+     */
+    DEPTH_FIRST,
+    /**
+     * A* search over position and velocity, finds the route with the fewest turns, see {@link AStarPlanner}.
+     */
+    A_STAR,
+    /**
+     * Table of the best move of every state reachable on the track, shared by all cars, see {@link PolicyTable}.
+     * A strategy created for a {@link Car} looks up the move of the current state of the car in every turn.
+     * Boards with more states than {@link Config#getPolicyTableMaxStates()} are planned with {@link #A_STAR}.
+     */
+    POLICY_TABLE,
+    /**
+     * Route from the {@link PolicyTable}, checked against the other cars in every turn and repaired around them
+     * without searching again from scratch, see {@link IncrementalPlanner}. On a track, the route is booked in
+     * the {@link ReservationTable} of the track and avoids the routes booked by the other cars. Needs a strategy
+     * created for a {@link Car}, otherwise the route is replayed like the other modes. Like
+     * {@link #POLICY_TABLE}, it needs a table of at most {@link Config#getPolicyTableMaxStates()} states, larger
+     * boards are planned with {@link #A_STAR} and the route is replayed without repairs.
+     */
+    INCREMENTAL
+  }
+
   private int[][] distanceGrid;
   int width;
   int height;
   PositionVector velocity = new PositionVector(0, 0);
   private ConfigSpecification.SpaceType[][] grid;
+  private final SpaceMask spaceMask;
+  private final SpaceSums spaceSums;
+  /**
+   * Layout providing the legal move table, null if every move is checked for walls.
+   */
+  private final TrackLayout layout;
+  private final int legalMoveMaxSpeed;
+  /**
+   * Number of checked moves after which the legal move table is looked up. Building a mask of the table costs
+   * about a third of checking a move without it, so the table pays off once the search checked a third as many
+   * moves as the table has masks.
+   */
+  private final long legalMoveTableChecks;
+  private long legalMoveChecks;
+  /**
+   * Precomputed legal moves of the track, null until enough moves were checked or if the board is too large.
+   */
+  private LegalMoveTable legalMoveTable;
   PositionVector location;
-  BresenhamAlgorithm bresenhamAlgorithm = new BresenhamAlgorithm();
+  private final LineWalker lineWalker = new LineWalker();
+  private final DistanceFieldEngine distanceFieldEngine;
   final int WALL = Integer.MAX_VALUE;
   final int FINISH_LINE = Integer.MAX_VALUE - 1;
   final int END_NODE = 1;
 
   List<PositionVector.Direction> moves = new ArrayList<>();
   private int moveCounter = 0;
+  private long expandedNodes;
+  private long generatedNodes;
+  private long planningTime;
+  private long deadEndHits;
+  private long deadEndMisses;
+  private boolean searchAborted;
+  private List<PositionVector> startPositions;
+  private PolicyTable policyTable;
+  private ViabilityKernel viabilityKernel;
+  private final long contentHash;
+  private final long policyTableMaxStates;
+  private final PlanningMode planningMode;
+  private IncrementalPlanner incrementalPlanner;
+  private Car car;
+  private Track track;
 
   /**Once the object is created, a set of moves is ready to be called with nextMove()
    * The strategy requires the grid from track to determine the distance to the finish line for
    * each point in the grid.
    */
   public PathFinderStrategy(ConfigSpecification.SpaceType[][] grid, PositionVector carLocation) {
+    this(grid, TrackLayout.contentHash(grid), SpaceMask.of(grid), SpaceSums.of(grid), null, 0, carLocation,
+            DistanceFieldEngine.forSize((long) grid.length * grid[0].length, Config.DEFAULT_PARALLEL_DISTANCE_FIELD_THRESHOLD),
+            PlanningMode.DEPTH_FIRST, Config.DEFAULT_MAX_SEARCH_DEPTH, Config.DEFAULT_POLICY_TABLE_MAX_STATES,
+            null, List.of(carLocation));
+  }
+
+  /**Creates the strategy from a track layout with the settings of the given configuration: the distance field
+   * engine is chosen by {@link Config#getParallelDistanceFieldThreshold()}, the depth first search is limited by
+   * {@link Config#getMaxSearchDepth()}, and distance grid and route are read from and written to the
+   * {@link PlanningCache} in {@link Config#getCacheDirectory()}, if there is one.
+   *
+   * @param layout the layout of the track
+   * @param carLocation start position of the car
+   * @param planningMode search algorithm planning the route
+   * @param config the configuration
+   */
+  public PathFinderStrategy(TrackLayout layout, PositionVector carLocation, PlanningMode planningMode, Config config) {
+    this(layout.getGrid(), layout.getContentHash(), layout.getSpaceMask(), layout.getSpaceSums(),
+            layout, config.getLegalMoveMaxSpeed(), carLocation,
+            DistanceFieldEngine.forSize((long) layout.getWidth() * layout.getHeight(),
+                    config.getParallelDistanceFieldThreshold()),
+            planningMode, config.getMaxSearchDepth(), config.getPolicyTableMaxStates(),
+            config.getCacheDirectory() == null ? null : new PlanningCache(config.getCacheDirectory()),
+            startPositions(layout));
+  }
+
+  /**
+   * Creates the strategy of a car on a track, see {@link #PathFinderStrategy(TrackLayout, PositionVector, PlanningMode, Config)}.
+   * With {@link PlanningMode#POLICY_TABLE}, each move is looked up for the current position and velocity of the
+   * car, so the car stays on the fastest route even if it left the planned one. With
+   * {@link PlanningMode#INCREMENTAL}, the route is repaired around the other cars on the track.
+   *
+   * @param track the track of the car
+   * @param car the car at its start position
+   * @param planningMode search algorithm planning the route
+   * @param config the configuration
+   */
+  public PathFinderStrategy(Track track, Car car, PlanningMode planningMode, Config config) {
+    this(track.getLayout(), car.getPosition(), planningMode, config);
+    this.car = car;
+    this.track = track;
+  }
+
+  private static List<PositionVector> startPositions(TrackLayout layout) {
+    List<PositionVector> startPositions = new ArrayList<>(layout.getCarCount());
+    for (int carIndex = 0; carIndex < layout.getCarCount(); carIndex++) {
+      startPositions.add(layout.getStartPosition(carIndex));
+    }
+    return startPositions;
+  }
+
+  /**
+   * The distance grid is taken from the {@link DistanceFieldCache#shared() shared cache}, so it is only computed
+   * by the first path finder on a board. With a planning cache, the distance grid and the route are also
+   * looked up on disk before they are computed.
+   */
+  private PathFinderStrategy(ConfigSpecification.SpaceType[][] grid, long contentHash, SpaceMask spaceMask,
+                             SpaceSums spaceSums, TrackLayout layout, int legalMoveMaxSpeed, PositionVector carLocation,
+                             DistanceFieldEngine distanceFieldEngine, PlanningMode planningMode, int maxSearchDepth,
+                             long policyTableMaxStates, PlanningCache planningCache,
+                             List<PositionVector> startPositions) {
     this.grid = grid;
+    this.policyTableMaxStates = policyTableMaxStates;
+    this.distanceFieldEngine = distanceFieldEngine;
+    this.spaceMask = spaceMask;
+    this.spaceSums = spaceSums;
+    this.layout = layout;
+    this.legalMoveMaxSpeed = legalMoveMaxSpeed;
+    this.contentHash = contentHash;
     this.location = carLocation;
+    this.startPositions = startPositions;
     width = grid.length;
     height = grid[0].length;
-    distanceGrid = new int[width][height];
-    blockFinishLine(grid);
-    assignEndNodes(grid);
-    assignWalls(grid);
-    fillInDistancesToFinishLine();
-    calculateRoute(carLocation, velocity);
+    long span = 2L * legalMoveMaxSpeed + 1;
+    legalMoveTableChecks = Math.max(1, (long) width * height * span * span / 3);
+    distanceGrid = DistanceFieldCache.shared().get(width, height, contentHash, planningCache == null
+            ? this::computeDistanceGrid
+            : () -> planningCache.getDistanceGrid(width, height, contentHash, this::computeDistanceGrid));
+    this.planningMode = (planningMode == PlanningMode.POLICY_TABLE || planningMode == PlanningMode.INCREMENTAL)
+            && !PolicyTable.fits(this, policyTableMaxStates) ? PlanningMode.A_STAR : planningMode;
+    long startTime = System.nanoTime();
+    if (planningCache == null || this.planningMode == PlanningMode.POLICY_TABLE
+            || this.planningMode == PlanningMode.INCREMENTAL) {
+      moves = planRoute(this.planningMode, maxSearchDepth);
+    } else {
+      moves = planningCache.getRoute(width, height, contentHash, this.planningMode, carLocation,
+              () -> planRoute(this.planningMode, maxSearchDepth));
+    }
+    planningTime = System.nanoTime() - startTime;
+  }
+
+  private List<PositionVector.Direction> planRoute(PlanningMode planningMode, int maxSearchDepth) {
+    List<PositionVector.Direction> route;
+    if (planningMode == PlanningMode.POLICY_TABLE) {
+      policyTable = PolicyTable.shared(this, contentHash, planningStarts());
+      route = policyTable.route(location, velocity);
+      expandedNodes = policyTable.size();
+    } else if (planningMode == PlanningMode.INCREMENTAL) {
+      policyTable = PolicyTable.shared(this, contentHash, planningStarts());
+      incrementalPlanner = new IncrementalPlanner(this, policyTable, location, velocity);
+      route = policyTable.route(location, velocity);
+      expandedNodes = policyTable.size();
+    } else if (planningMode == PlanningMode.A_STAR) {
+      AStarPlanner planner = new AStarPlanner(this, getViabilityKernel());
+      route = planner.plan(location, velocity);
+      expandedNodes = planner.getExpandedNodes();
+      generatedNodes = planner.getGeneratedNodes();
+    } else {
+      DepthFirstPlanner planner = new DepthFirstPlanner(this, maxSearchDepth, getViabilityKernel());
+      route = planner.plan(location, velocity);
+      expandedNodes = planner.getExpandedNodes();
+      generatedNodes = planner.getGeneratedNodes();
+      deadEndHits = planner.getDeadEndHits();
+      deadEndMisses = planner.getDeadEndMisses();
+      searchAborted = planner.isAborted();
+    }
+    return route;
+  }
+
+  /**
+   * @return the start positions of all cars on the track and the position of this car
+   */
+  private List<PositionVector> planningStarts() {
+    List<PositionVector> starts = new ArrayList<>(startPositions);
+    if (!starts.contains(location)) {
+      starts.add(location);
+    }
+    return starts;
+  }
+
+  /**
+   * Returns the states from which the finish line can still be reached. The kernel is built on the first call
+   * and shared by all path finders on the same board.
+   *
+   * @return the viability kernel of the board, null if the board has more than
+   * {@link Config#getPolicyTableMaxStates()} states
+   */
+  public ViabilityKernel getViabilityKernel() {
+    if (viabilityKernel == null && ViabilityKernel.fits(this, policyTableMaxStates)) {
+      viabilityKernel = ViabilityKernel.shared(this, contentHash);
+    }
+    return viabilityKernel;
   }
 
   /**
@@ -48,10 +250,21 @@ public class PathFinderStrategy implements MoveStrategy {
    * moveCounter, so that the next method call will return
    * the next move in the sequence.
    *
-   * @return next move from the move list
+   * @return next move from the move list, {@link PositionVector.Direction#NONE} if no route was planned or
+   * the route has been driven to its end
    * */
   @Override
   public PositionVector.Direction nextMove() {
+    if (car != null && incrementalPlanner != null) {
+      return incrementalPlanner.nextMove(car, track);
+    }
+    if (car != null && policyTable != null) {
+      PositionVector.Direction move = policyTable.getMove(car.getPosition(), car.getVelocity());
+      return move != null ? move : PositionVector.Direction.NONE;
+    }
+    if (moveCounter >= moves.size()) {
+      return PositionVector.Direction.NONE;
+    }
     return moves.get(moveCounter++);
   }
 
@@ -89,6 +302,116 @@ public class PathFinderStrategy implements MoveStrategy {
     return distanceGrid[x][y];
   }
 
+  /**
+   * @return the search algorithm which planned the route, {@link PlanningMode#A_STAR} if the policy table of the
+   * requested mode would have been too large, see {@link Config#getPolicyTableMaxStates()}
+   */
+  public PlanningMode getPlanningMode() {
+    return planningMode;
+  }
+
+  /**
+   * @return the planned moves from the start position to the finish line, empty if no route was found
+   */
+  public List<PositionVector.Direction> getMoves() {
+    return List.copyOf(moves);
+  }
+
+  /**
+   * @return number of states whose moves were examined while planning the route
+   */
+  public long getExpandedNodes() {
+    return expandedNodes;
+  }
+
+  /**
+   * @return number of states reached by a move while planning the route
+   */
+  public long getGeneratedNodes() {
+    return generatedNodes;
+  }
+
+  /**
+   * @return time spent planning the route after the distance grid was filled, in nanoseconds
+   */
+  public long getPlanningTime() {
+    return planningTime;
+  }
+
+  /**
+   * @return number of states the depth first search skipped because they were already known as dead ends
+   */
+  public long getDeadEndHits() {
+    return deadEndHits;
+  }
+
+  /**
+   * @return number of states the depth first search explored because they were not known as dead ends
+   */
+  public long getDeadEndMisses() {
+    return deadEndMisses;
+  }
+
+  /**
+   * @return number of turns in which the route of {@link PlanningMode#INCREMENTAL} had to be repaired
+   */
+  public long getReplanCount() {
+    return incrementalPlanner == null ? 0 : incrementalPlanner.getReplanCount();
+  }
+
+  /**
+   * @return number of states expanded by the repairs of {@link PlanningMode#INCREMENTAL}
+   */
+  public long getRepairedNodes() {
+    return incrementalPlanner == null ? 0 : incrementalPlanner.getRepairedNodes();
+  }
+
+  /**
+   * @return time spent repairing the route of {@link PlanningMode#INCREMENTAL}, in nanoseconds
+   */
+  public long getReplanTime() {
+    return incrementalPlanner == null ? 0 : incrementalPlanner.getReplanTime();
+  }
+
+  /**
+   * @return true if the depth first search was aborted because it reached the maximum search depth,
+   * no route was planned in this case
+   */
+  public boolean isSearchAborted() {
+    return searchAborted;
+  }
+
+  /**
+   * Packs a state of a car into a non-negative number, unique for all positions in the grid and all
+   * velocities which keep the car in the grid.
+   *
+   * @param x column of the position
+   * @param y row of the position
+   * @param velocityX velocity along the x axis
+   * @param velocityY velocity along the y axis
+   * @return the key of the state
+   */
+  long stateKey(int x, int y, int velocityX, int velocityY) {
+    int maxSpeed = Math.max(width, height);
+    long velocityCount = 2L * maxSpeed + 1;
+    long cell = (long) x * height + y;
+    return (cell * velocityCount + velocityX + maxSpeed) * velocityCount + velocityY + maxSpeed;
+  }
+
+  /**
+   * Computes the distances of all spaces to the finish line.
+   *
+   * @return the new distance grid
+   */
+  private int[][] computeDistanceGrid() {
+    distanceGrid = new int[width][height];
+    blockFinishLine(grid);
+    assignEndNodes(grid);
+    assignWalls(grid);
+    fillInDistancesToFinishLine();
+    return distanceGrid;
+  }
+
   /**
    * The finish line is blocked in the distanceGrid, so that the algorithm
    * does not go over the finish line the wrong way if the finish line is right
@@ -141,115 +464,19 @@ public class PathFinderStrategy implements MoveStrategy {
   }
 
   /**
-   * The distances to the finish lines are filled in step by step.
-   * method starts from end nodes and stops when it finds no more zero values
-   * to change.
+   * The distances to the finish lines are filled in by the {@link DistanceFieldEngine},
+   * starting from all end nodes at once.
    * */
   private void fillInDistancesToFinishLine() {
-    int level = END_NODE;
-    while (fillLevel(++level)) ;
-  }
-
-
-  /**
-   * This method fills the moves (list)
-   *
-   * @param location of car
-   * @param velocity of car
-   *
-   * @return first best move available
-   * @return null if there is no move available that does not crash
-   */
-  private PositionVector.Direction calculateRoute(PositionVector location, PositionVector velocity) {
-    List<Alternative> alternatives = new ArrayList<>();
-
-    PositionVector neutralPosition = PositionVector.add(location, velocity);
-
-    PositionVector.Direction move = getNextMove(location, velocity, alternatives, neutralPosition);
-    if (move != null) return move;
-
-    boolean willCrash = alternatives.isEmpty();
-    if (willCrash) return null;
-    alternatives.sort(Comparator.comparingInt(a -> a.distance));
-
-    for (Alternative alternative : alternatives) {
-      PositionVector.Direction direction = this.calculateRoute(alternative.nextPosition, alternative.velocity);
-      if (direction != null) {
-        moves.add(0, alternative.direction);
-        return alternative.direction;
-      }
-
-    }
-
-    return null;
+    distanceFieldEngine.fill(distanceGrid, END_NODE);
   }
 
-  /**
-   * This method loops over all nine direction options,
-   * and checks if the car will crash, go out of grid
-   * or will win when considering the current location
-   * and velocity of the car.
-   *
-   * @return null if all alternatives crash or go out of grid
-   * @return best move, or winning move
-   * */
-  private PositionVector.Direction getNextMove(PositionVector location, PositionVector velocity, List<Alternative> alternatives, PositionVector neutralPosition) {
-    PositionVector.Direction[] allMoves = PositionVector.Direction.values();
-    for (PositionVector.Direction move : allMoves) {
-      PositionVector nextPosition = PositionVector.add(neutralPosition, move.vector);
-      PositionVector nextVelocity = PositionVector.add(velocity, move.vector);
-      if (!isInGrid(nextPosition)) continue;
-      if (willCrash(location, nextPosition)) continue;
-      if (willFinish(location, nextPosition)) {
-        moves.add(0, move);
-        return move;
-      }
-      alternatives.add(new Alternative(
-              move,
-              nextPosition,
-              nextVelocity,
-              distanceGrid[nextPosition.getX()][nextPosition.getY()]
-      ));
-    }
-    return null;
-  }
-
-  /**This method fills in the specified level (distance to finish line)*/
-  private boolean fillLevel(int level) {
-    boolean levelExists = false;
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        if (distanceGrid[x][y] == 0 && hasNeighbouringNode(x, y, level - 1)) {
-          distanceGrid[x][y] = level;
-          levelExists = true;
-        }
-      }
-    }
-    return levelExists;
-  }
-
-  /**This method checks if the neighbouring distances have been filled out already with the specified level
-   * @param x position
-   * @param y position
-   * @param level specified level (distance)
-   * @return true if has neighbouring node
-   * */
-  private boolean hasNeighbouringNode(int x, int y, int level) {
-    for (int i = x - 1; i <= x + 1; i++) {
-      for (int j = y - 1; j <= y + 1; j++) {
-        if (i == x && j == y) continue;
-        if (!isInGrid(i, j)) continue;
-        if (distanceGrid[i][j] == level) return true;
-      }
-    }
-    return false;
-  }
 
   private boolean isInGrid(int x, int y) {
     return !(x < 0 || y < 0 || x >= width || y >= height);
   }
 
-  private boolean isInGrid(PositionVector positionVector) {
+  boolean isInGrid(PositionVector positionVector) {
     return isInGrid(positionVector.getX(), positionVector.getY());
   }
 
@@ -258,11 +485,15 @@ public class PathFinderStrategy implements MoveStrategy {
    * @param endPosition end vector
    * @return true if there is finish line between the two points
    * */
-  private boolean willFinish(PositionVector startPosition, PositionVector endPosition) {
-    List<PositionVector> wayPoints = bresenhamAlgorithm.calculatePath(startPosition, endPosition);
-    for (PositionVector wayPoint : wayPoints) {
-      if (distanceGrid[wayPoint.getX()][wayPoint.getY()] == FINISH_LINE) {
-        switch (grid[wayPoint.getX()][wayPoint.getY()]) {
+  boolean willFinish(PositionVector startPosition, PositionVector endPosition) {
+    if (!spaceSums.hasFinishInBoundingBox(startPosition, endPosition)
+            || !spaceMask.hasFinishOnLine(startPosition, endPosition)) {
+      return false;
+    }
+    LineWalker wayPoints = lineWalker.start(startPosition, endPosition);
+    while (wayPoints.next()) {
+      if (distanceGrid[wayPoints.getX()][wayPoints.getY()] == FINISH_LINE) {
+        switch (grid[wayPoints.getX()][wayPoints.getY()]) {
 
           case FINISH_UP -> {
             return endPosition.getY() < startPosition.getY();
@@ -289,56 +520,57 @@ public class PathFinderStrategy implements MoveStrategy {
   /**
    * method that will check if there is a wall between two start end end vectors
    * does not check for cars!
+   * A path whose bounding box has no wall according to the {@link SpaceSums} is accepted in constant time,
+   * otherwise the path is tested row by row on the wall bitset of the {@link SpaceMask}.
    * @param startPosition start vector
    * @param endPosition end vector
    * @return if will crash with wall
    * */
-  private boolean willCrash(PositionVector startPosition, PositionVector endPosition) {
-    List<PositionVector> wayPoints = bresenhamAlgorithm.calculatePath(startPosition, endPosition);
-    for (PositionVector wayPoint : wayPoints) {
-      if (distanceGrid[wayPoint.getX()][wayPoint.getY()] == WALL) {
-        return true;
-      }
-    }
-    return false;
+  boolean willCrash(PositionVector startPosition, PositionVector endPosition) {
+    return spaceSums.hasWallInBoundingBox(startPosition, endPosition)
+            && spaceMask.hasWallOnLine(startPosition, endPosition);
   }
 
   /**
-   * An Alternative object holds a direction value,
-   * a Positionvector describing its next location
-   * a Positionvector describing the velocity
-   * a distance int which holds the distance to the finish line
-   * */
-  class Alternative {
-
-    private PositionVector.Direction direction;
-    private PositionVector nextPosition;
-    private PositionVector velocity;
-    private int distance;
-
-    public Alternative(PositionVector.Direction direction, PositionVector nextPosition, PositionVector velocity, int distance) {
-      this.direction = direction;
-      this.nextPosition = nextPosition;
-      this.velocity = velocity;
-      this.distance = distance;
-
-    }
-
-    public PositionVector.Direction getDirection() {
-      return direction;
+   * Returns the accelerations of a car which end on the board and do not crash. They are looked up in the
+   * {@link LegalMoveTable} of the track if it covers the velocity, and checked with
+   * {@link #willCrash(PositionVector, PositionVector)} otherwise. The table is only built once this path finder
+   * checked enough moves to pay for it, and never if the board is too large for it.
+   *
+   * @param x column of the car, not a wall
+   * @param y row of the car, not a wall
+   * @param velocityX horizontal velocity of the car
+   * @param velocityY vertical velocity of the car
+   * @return mask with bit {@code direction.ordinal()} set for each legal acceleration
+   */
+  int legalMoves(int x, int y, int velocityX, int velocityY) {
+    if (legalMoveTable == null && layout != null && ++legalMoveChecks == legalMoveTableChecks) {
+      legalMoveTable = layout.getLegalMoves(legalMoveMaxSpeed);
     }
-
-    public int getDistance() {
-      return distance;
+    if (legalMoveTable != null && legalMoveTable.covers(velocityX, velocityY)) {
+      return legalMoveTable.getLegalMoves(x, y, velocityX, velocityY);
     }
-
-    public PositionVector getNextPosition() {
-      return nextPosition;
+    PositionVector location = new PositionVector(x, y);
+    int legalMoves = 0;
+    for (PositionVector.Direction move : PositionVector.Direction.values()) {
+      PositionVector nextPosition = new PositionVector(x + velocityX + move.vector.getX(), y + velocityY + move.vector.getY());
+      if (isInGrid(nextPosition) && !willCrash(location, nextPosition)) {
+        legalMoves |= 1 << move.ordinal();
+      }
     }
+    return legalMoves;
+  }
 
-    public PositionVector getVelocity() {
-      return velocity;
-    }
+  /**
+   * method that will check if there is a finish line space between two start and end vectors,
+   * in any direction
+   * @param startPosition start vector
+   * @param endPosition end vector
+   * @return true if the path touches the finish line
+   * */
+  boolean crossesFinishLine(PositionVector startPosition, PositionVector endPosition) {
+    return spaceSums.hasFinishInBoundingBox(startPosition, endPosition)
+            && spaceMask.hasFinishOnLine(startPosition, endPosition);
   }
 
 }
@@ -1,6 +1,6 @@
 package ch.zhaw.pm2.racetrack.strategy;
 
-import ch.zhaw.pm2.racetrack.BresenhamAlgorithm;
+import ch.zhaw.pm2.racetrack.game.LineWalker;
 import ch.zhaw.pm2.racetrack.game.PositionVector;
 import ch.zhaw.pm2.racetrack.game.PositionVector.Direction;
 
@@ -75,7 +75,7 @@ public class PathFollowerMoveStrategy implements MoveStrategy {
    * Calculates the directions to drive the car to the given points with optimised acceleration and braking.
    * Car accelerates more than 1 if it can break in time
    * <p>
-   * The method itself calculates a path to the next targeted position with the {@link BresenhamAlgorithm}
+   * The method itself walks the path to the next targeted position with a {@link LineWalker}
    * Each point to this target is steered to with a max speed of 1
    * The resulting list of directions is then optimised using the applySpeed method
    *
@@ -87,13 +87,14 @@ public class PathFollowerMoveStrategy implements MoveStrategy {
     List<Direction> moves = new ArrayList<>();
     PositionVector velocity = new PositionVector(0, 0);
     PositionVector position = startPosition;
+    LineWalker lineWalker = new LineWalker();
 
     for (PositionVector pathPoint : path) {
-      BresenhamAlgorithm bresenhamAlgorithm = new BresenhamAlgorithm();
-      List<PositionVector> positionVectorList = bresenhamAlgorithm.calculatePath(position, pathPoint);
-      positionVectorList.remove(0);
+      LineWalker line = lineWalker.start(position, pathPoint);
+      line.next();
 
-      for (PositionVector pos : positionVectorList) {
+      while (line.next()) {
+        PositionVector pos = new PositionVector(line.getX(), line.getY());
         PositionVector way = PositionVector.subtract(pos, position);
 
         if (velocity.getLength() == 0) {
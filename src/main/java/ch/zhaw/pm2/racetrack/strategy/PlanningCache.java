@@ -0,0 +1,240 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * On-disk cache of the planning data of the {@link PathFinderStrategy}, so a restarted game does not have to
+ * compute it again for a known track.
+ *
+ * <p>Distance grids and routes are stored per board in binary files named after the content hash of the board,
+ * see {@link ch.zhaw.pm2.racetrack.game.TrackLayout#getContentHash()}. All numbers are big-endian, each file is
+ * laid out as follows:</p>
+ * <ol>
+ *   <li>the four bytes of {@link #MAGIC}, the format version as unsigned short and the kind of data as byte</li>
+ *   <li>width and height of the board as int and its content hash as long</li>
+ *   <li>for a distance grid, the distances as int, column by column; for a route, the planning mode ordinal
+ *   as byte, the start position as two ints, the number of moves as int and the direction ordinal of each move
+ *   as byte</li>
+ *   <li>the CRC32 checksum of all preceding bytes as int</li>
+ * </ol>
+ *
+ * <p>Files are memory-mapped when read. A missing, outdated or corrupt file is a cache miss: the data is
+ * computed and the file written again. Failing to write a file only costs the next start the computation,
+ * so write errors are ignored.</p>
+ */
+public final class PlanningCache {
+  static final int VERSION = 1;
+  private static final byte[] MAGIC = {(byte) 0x89, 'R', 'T', 'P'};
+  private static final byte DISTANCE_GRID = 1;
+  private static final byte ROUTE = 2;
+  private static final int HEADER_SIZE = MAGIC.length + Short.BYTES + Byte.BYTES + 2 * Integer.BYTES + Long.BYTES;
+  private static final int CHECKSUM_SIZE = Integer.BYTES;
+  private static final PositionVector.Direction[] DIRECTIONS = PositionVector.Direction.values();
+
+  private final File directory;
+
+  /**
+   * @param directory directory holding the cache files, created when the first file is written
+   */
+  public PlanningCache(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the distance grid of a board from its cache file, or computes and stores it. Grids which are too
+   * large to be mapped in one piece are not stored.
+   *
+   * @param width       number of columns of the board
+   * @param height      number of rows of the board
+   * @param contentHash content hash of the board
+   * @param computation computes the distance grid, indexed [x][y], if it is not cached
+   * @return the distance grid
+   */
+  public int[][] getDistanceGrid(int width, int height, long contentHash, Supplier<int[][]> computation) {
+    long payloadSize = (long) width * height * Integer.BYTES;
+    if (!fitsInFile(payloadSize)) {
+      return computation.get();
+    }
+    File file = new File(directory, baseName(width, height, contentHash) + ".dist");
+    try {
+      ByteBuffer data = read(file, DISTANCE_GRID, width, height, contentHash);
+      if (data != null && data.remaining() == payloadSize) {
+        IntBuffer distances = data.asIntBuffer();
+        int[][] distanceGrid = new int[width][height];
+        for (int[] column : distanceGrid) {
+          distances.get(column);
+        }
+        return distanceGrid;
+      }
+    } catch (IOException | BufferUnderflowException e) {
+      // corrupt file, computed and written again below
+    }
+    int[][] distanceGrid = computation.get();
+    write(file, DISTANCE_GRID, width, height, contentHash, output -> {
+      for (int[] column : distanceGrid) {
+        for (int distance : column) {
+          output.writeInt(distance);
+        }
+      }
+    });
+    return distanceGrid;
+  }
+
+  /**
+   * Returns a route from its cache file, or plans and stores it. Empty routes and routes too long to be mapped
+   * in one piece are not stored.
+   *
+   * @param width        number of columns of the board
+   * @param height       number of rows of the board
+   * @param contentHash  content hash of the board
+   * @param planningMode search algorithm of the route
+   * @param start        start position of the car, which starts without velocity
+   * @param planning     plans the route if it is not cached
+   * @return the moves of the route
+   */
+  public List<PositionVector.Direction> getRoute(int width, int height, long contentHash,
+                                                 PathFinderStrategy.PlanningMode planningMode, PositionVector start,
+                                                 Supplier<List<PositionVector.Direction>> planning) {
+    File file = new File(directory, String.format(Locale.ROOT, "%s-%s-%d-%d.route", baseName(width, height, contentHash),
+            planningMode.name().toLowerCase(Locale.ROOT), start.getX(), start.getY()));
+    try {
+      ByteBuffer data = read(file, ROUTE, width, height, contentHash);
+      if (data != null && data.get() == planningMode.ordinal()
+              && data.getInt() == start.getX() && data.getInt() == start.getY()) {
+        List<PositionVector.Direction> route = readMoves(data);
+        if (route != null) {
+          return route;
+        }
+      }
+    } catch (IOException | BufferUnderflowException e) {
+      // corrupt file, planned and written again below
+    }
+    List<PositionVector.Direction> route = planning.get();
+    if (!route.isEmpty() && fitsInFile(Byte.BYTES + 3L * Integer.BYTES + route.size())) {
+      write(file, ROUTE, width, height, contentHash, output -> {
+        output.writeByte(planningMode.ordinal());
+        output.writeInt(start.getX());
+        output.writeInt(start.getY());
+        output.writeInt(route.size());
+        for (PositionVector.Direction move : route) {
+          output.writeByte(move.ordinal());
+        }
+      });
+    }
+    return route;
+  }
+
+  private static List<PositionVector.Direction> readMoves(ByteBuffer data) {
+    int count = data.getInt();
+    if (count < 0 || count != data.remaining()) {
+      return null;
+    }
+    List<PositionVector.Direction> route = new ArrayList<>(count);
+    for (int index = 0; index < count; index++) {
+      int ordinal = data.get();
+      if (ordinal < 0 || ordinal >= DIRECTIONS.length) {
+        return null;
+      }
+      route.add(DIRECTIONS[ordinal]);
+    }
+    return route;
+  }
+
+  /**
+   * @param payloadSize number of bytes of the payload
+   * @return true if a file with the payload can be mapped by {@link #read}
+   */
+  private static boolean fitsInFile(long payloadSize) {
+    return HEADER_SIZE + payloadSize + CHECKSUM_SIZE <= Integer.MAX_VALUE;
+  }
+
+  private static String baseName(int width, int height, long contentHash) {
+    return String.format(Locale.ROOT, "%016x-%dx%d", contentHash, width, height);
+  }
+
+  /**
+   * Maps a cache file and checks its checksum and header.
+   *
+   * @return the payload of the file, null if the file does not exist or belongs to another board, format version
+   * or kind of data
+   * @throws IOException if the file could not be read or its checksum does not match
+   */
+  private static ByteBuffer read(File file, byte kind, int width, int height, long contentHash) throws IOException {
+    if (!file.isFile()) {
+      return null;
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+         FileChannel channel = randomAccessFile.getChannel()) {
+      long fileLength = channel.size();
+      if (fileLength < HEADER_SIZE + CHECKSUM_SIZE || fileLength > Integer.MAX_VALUE) {
+        return null;
+      }
+      ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+      int checksumOffset = (int) fileLength - CHECKSUM_SIZE;
+      CRC32 checksum = new CRC32();
+      checksum.update(bytes.duplicate().limit(checksumOffset));
+      if ((int) checksum.getValue() != bytes.getInt(checksumOffset)) {
+        throw new IOException("The checksum of the cache file " + file + " does not match.");
+      }
+      bytes.limit(checksumOffset);
+      byte[] magic = new byte[MAGIC.length];
+      bytes.get(magic);
+      boolean matches = Arrays.equals(magic, MAGIC) && Short.toUnsignedInt(bytes.getShort()) == VERSION
+              && bytes.get() == kind && bytes.getInt() == width && bytes.getInt() == height
+              && bytes.getLong() == contentHash;
+      return matches ? bytes.slice() : null;
+    }
+  }
+
+  private void write(File file, byte kind, int width, int height, long contentHash, Payload payload) {
+    File temporary = null;
+    try {
+      Files.createDirectories(directory.toPath());
+      temporary = File.createTempFile(file.getName(), ".tmp", directory);
+      CRC32 checksum = new CRC32();
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+           DataOutputStream checked = new DataOutputStream(new CheckedOutputStream(output, checksum))) {
+        checked.write(MAGIC);
+        checked.writeShort(VERSION);
+        checked.writeByte(kind);
+        checked.writeInt(width);
+        checked.writeInt(height);
+        checked.writeLong(contentHash);
+        payload.write(checked);
+        checked.flush();
+        output.writeInt((int) checksum.getValue());
+      }
+      Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // the data is computed again on the next start
+      if (temporary != null) {
+        temporary.delete();
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface Payload {
+    void write(DataOutputStream output) throws IOException;
+  }
+}
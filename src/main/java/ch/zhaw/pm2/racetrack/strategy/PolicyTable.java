@@ -0,0 +1,405 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of the best move and the number of turns to the finish line of every state (x, y, vx, vy) a car can
+ * reach from the start positions of a track.
+ *
+ * <p>The table is built by two breadth first searches. The forward search collects all states reachable from
+ * the start positions without velocity, skipping moves which crash or touch the finish line without winning,
+ * like the {@link AStarPlanner}. The backward search then starts at the states with a winning move and follows
+ * the moves backwards, so every state learns the move which leads to the finish line in the fewest turns.
+ * A strategy can look up the optimal move of any state in constant time, also after it left its plan.</p>
+ *
+ * <p>The states are indexed densely by {@code slot * span + (velocityY + maxSpeedY) * spanX + velocityX +
+ * maxSpeedX}, where the slot numbers the spaces which are not walls, like the {@link
+ * ch.zhaw.pm2.racetrack.game.LegalMoveTable}. A car which stood still at the start has moved at least
+ * {@code 1 + 2 + ... + v} spaces in one direction to reach the speed {@code v} in it, so the speed in each direction
+ * is bounded by the size of the board. The moves are packed into four bits per index, the turns into a
+ * {@code short} per index, saturating at {@link Short#MAX_VALUE}, and one bit marks the reached states:
+ * 2.6 bytes per index and no per state lookup structure. A table is immutable once built and shared by all
+ * cars on the track, see {@link #shared(PathFinderStrategy, long, List)}.</p>
+ */
+public final class PolicyTable {
+  static final int NO_STATE = -1;
+  static final int NO_MOVE = 0xf;
+  /**
+   * Largest number of indices of a table, limited by the length of the arrays.
+   */
+  static final long MAX_INDICES = Integer.MAX_VALUE - 8;
+  private static final int MOVE_BITS = 4;
+  private static final int NO_SLOT = -1;
+  private static final int WORD_SHIFT = 6;
+  private static final PositionVector.Direction[] DIRECTIONS = PositionVector.Direction.values();
+
+  private static final int SHARED_TABLES = 4;
+  private static final Map<Key, PolicyTable> SHARED = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, PolicyTable> eldest) {
+      return size() > SHARED_TABLES;
+    }
+  };
+
+  private final int width;
+  private final int height;
+  private final int maxSpeedX;
+  private final int maxSpeedY;
+  /**
+   * Number of horizontal velocities from {@code -maxSpeedX} to {@code maxSpeedX}.
+   */
+  private final int spanX;
+  /**
+   * Number of velocities of each space.
+   */
+  private final int span;
+  /**
+   * Slot of each row-major cell, {@link #NO_SLOT} for walls.
+   */
+  private final int[] slots;
+  /**
+   * Row-major cell of each slot.
+   */
+  private final int[] cells;
+  /**
+   * Bit per index, set if the state was reached from the start positions.
+   */
+  private final long[] reached;
+  private final byte[] moves;
+  private final short[] turnsToGo;
+  private int stateCount;
+
+  private record Key(int width, int height, long contentHash, List<PositionVector> startPositions) {
+  }
+
+  private PolicyTable(PathFinderStrategy pathFinder) {
+    width = pathFinder.width;
+    height = pathFinder.height;
+    maxSpeedX = maxSpeed(width);
+    maxSpeedY = maxSpeed(height);
+    spanX = 2 * maxSpeedX + 1;
+    span = spanX * (2 * maxSpeedY + 1);
+    slots = new int[width * height];
+    int slotCount = 0;
+    for (int cell = 0; cell < slots.length; cell++) {
+      slots[cell] = pathFinder.getDistanceGrid(cell % width, cell / width) == pathFinder.WALL ? NO_SLOT : slotCount++;
+    }
+    long indexCount = (long) slotCount * span;
+    if (indexCount > MAX_INDICES) {
+      throw new IllegalArgumentException("The board has too many states for a policy table: " + indexCount);
+    }
+    cells = new int[slotCount];
+    for (int cell = 0; cell < slots.length; cell++) {
+      if (slots[cell] != NO_SLOT) {
+        cells[slots[cell]] = cell;
+      }
+    }
+    reached = new long[(int) ((indexCount + Long.SIZE - 1) >>> WORD_SHIFT)];
+    moves = new byte[(int) ((indexCount + 1) / 2)];
+    Arrays.fill(moves, (byte) -1);
+    turnsToGo = new short[(int) indexCount];
+  }
+
+  /**
+   * Checks whether the table of a board has at most the given number of indices, before any of it is allocated.
+   *
+   * @param pathFinder the path finder providing the distance grid
+   * @param maxIndices largest number of indices allowed
+   * @return true if the table can be built within the limit
+   */
+  static boolean fits(PathFinderStrategy pathFinder, long maxIndices) {
+    long slotCount = 0;
+    for (int y = 0; y < pathFinder.height; y++) {
+      for (int x = 0; x < pathFinder.width; x++) {
+        if (pathFinder.getDistanceGrid(x, y) != pathFinder.WALL) {
+          slotCount++;
+        }
+      }
+    }
+    long span = (2L * maxSpeed(pathFinder.width) + 1) * (2L * maxSpeed(pathFinder.height) + 1);
+    return slotCount * span <= Math.min(maxIndices, MAX_INDICES);
+  }
+
+  /**
+   * @param extent number of spaces of the board in one direction
+   * @return the largest speed {@code v} in that direction with {@code 1 + 2 + ... + v < extent}
+   */
+  static int maxSpeed(int extent) {
+    int speed = 0;
+    while ((long) (speed + 1) * (speed + 2) / 2 < extent) {
+      speed++;
+    }
+    return speed;
+  }
+
+  /**
+   * Builds the table of a track.
+   *
+   * @param pathFinder     the path finder providing the distance grid and the move checks
+   * @param startPositions start positions of the cars
+   * @return the table of all states reachable from the start positions
+   * @throws IllegalArgumentException if the board has more than {@link #MAX_INDICES} indices
+   */
+  static PolicyTable build(PathFinderStrategy pathFinder, List<PositionVector> startPositions) {
+    PolicyTable table = new PolicyTable(pathFinder);
+    int[] winners = table.collectStates(pathFinder, startPositions);
+    table.searchBackwards(pathFinder, winners);
+    return table;
+  }
+
+  /**
+   * Returns the table of a track from the tables shared by all path finders, building it on the first request.
+   * The most recently used tables are kept. The table is built without holding the lock of the shared tables,
+   * like the grids of the {@link DistanceFieldCache}, so a table requested by several threads at once may be
+   * built more than once, but all of them get the table which was shared first.
+   *
+   * @param pathFinder     the path finder providing the distance grid and the move checks
+   * @param contentHash    content hash of the board
+   * @param startPositions start positions of all cars on the track
+   * @return the shared table of all states reachable from the start positions
+   */
+  static PolicyTable shared(PathFinderStrategy pathFinder, long contentHash, List<PositionVector> startPositions) {
+    Key key = new Key(pathFinder.width, pathFinder.height, contentHash, List.copyOf(startPositions));
+    synchronized (SHARED) {
+      PolicyTable table = SHARED.get(key);
+      if (table != null) {
+        return table;
+      }
+    }
+    PolicyTable table = build(pathFinder, startPositions);
+    synchronized (SHARED) {
+      PolicyTable shared = SHARED.putIfAbsent(key, table);
+      return shared != null ? shared : table;
+    }
+  }
+
+  /**
+   * Adds all states reachable from the start positions by breadth first search.
+   *
+   * @return the indices of the states with a winning move, whose move and turns are already set
+   */
+  private int[] collectStates(PathFinderStrategy pathFinder, List<PositionVector> startPositions) {
+    int[] queue = new int[1024];
+    int tail = 0;
+    for (PositionVector start : startPositions) {
+      int state = indexOf(start.getX(), start.getY(), 0, 0, false);
+      if (state != NO_STATE && !isReached(state)) {
+        setReached(state);
+        queue[tail++] = state;
+      }
+    }
+    byte[] winningMoves = new byte[16];
+    int[] winners = new int[16];
+    int winnerCount = 0;
+    for (int head = 0; head < tail; head++) {
+      int state = queue[head];
+      int cell = cells[state / span];
+      int x = cell % width;
+      int y = cell / width;
+      int stateVelocityX = velocityX(state);
+      int stateVelocityY = velocityY(state);
+      PositionVector location = new PositionVector(x, y);
+      int legalMoves = pathFinder.legalMoves(x, y, stateVelocityX, stateVelocityY);
+      for (PositionVector.Direction move : DIRECTIONS) {
+        if ((legalMoves & (1 << move.ordinal())) == 0) {
+          continue;
+        }
+        int velocityX = stateVelocityX + move.vector.getX();
+        int velocityY = stateVelocityY + move.vector.getY();
+        PositionVector nextPosition = new PositionVector(x + velocityX, y + velocityY);
+        if (pathFinder.willFinish(location, nextPosition)) {
+          if (winnerCount == winners.length) {
+            winners = Arrays.copyOf(winners, 2 * winnerCount);
+            winningMoves = Arrays.copyOf(winningMoves, 2 * winnerCount);
+          }
+          winningMoves[winnerCount] = (byte) move.ordinal();
+          winners[winnerCount++] = state;
+          break;
+        }
+        if (pathFinder.getDistanceGrid(nextPosition.getX(), nextPosition.getY()) == DistanceFieldEngine.FREE
+                || pathFinder.crossesFinishLine(location, nextPosition)) {
+          continue;
+        }
+        int next = indexOf(nextPosition.getX(), nextPosition.getY(), velocityX, velocityY, false);
+        if (next != NO_STATE && !isReached(next)) {
+          setReached(next);
+          if (tail == queue.length) {
+            queue = Arrays.copyOf(queue, 2 * tail);
+          }
+          queue[tail++] = next;
+        }
+      }
+    }
+    stateCount = tail;
+    for (int index = 0; index < winnerCount; index++) {
+      setMove(winners[index], winningMoves[index]);
+      turnsToGo[winners[index]] = 1;
+    }
+    return Arrays.copyOf(winners, winnerCount);
+  }
+
+  /**
+   * Assigns move and turns to all states from which a winning state can be reached, in the order of their
+   * turns to go. The predecessors of a state with velocity v at position p are the states at p - v whose
+   * velocity plus one of the accelerations is v, if the move between both positions is allowed. The move is the
+   * same for all predecessors, so it is checked once.
+   */
+  private void searchBackwards(PathFinderStrategy pathFinder, int[] winners) {
+    int[] queue = Arrays.copyOf(winners, Math.max(winners.length, stateCount));
+    int head = 0;
+    int tail = winners.length;
+    while (head < tail) {
+      int state = queue[head++];
+      int cell = cells[state / span];
+      int x = cell % width;
+      int y = cell / width;
+      int velocityX = velocityX(state);
+      int velocityY = velocityY(state);
+      PositionVector previous = new PositionVector(x - velocityX, y - velocityY);
+      PositionVector position = new PositionVector(x, y);
+      if (!pathFinder.isInGrid(previous) || pathFinder.willCrash(previous, position)
+              || pathFinder.crossesFinishLine(previous, position)) {
+        continue;
+      }
+      short turns = (short) Math.min(Short.MAX_VALUE, turnsToGo[state] + 1);
+      for (PositionVector.Direction move : DIRECTIONS) {
+        int predecessor = indexOf(previous.getX(), previous.getY(),
+                velocityX - move.vector.getX(), velocityY - move.vector.getY());
+        if (predecessor == NO_STATE || turnsToGo[predecessor] != 0) {
+          continue;
+        }
+        setMove(predecessor, move.ordinal());
+        turnsToGo[predecessor] = turns;
+        queue[tail++] = predecessor;
+      }
+    }
+  }
+
+  private int velocityX(int state) {
+    return state % span % spanX - maxSpeedX;
+  }
+
+  private int velocityY(int state) {
+    return state % span / spanX - maxSpeedY;
+  }
+
+  private boolean isReached(int state) {
+    return (reached[state >>> WORD_SHIFT] & (1L << state)) != 0;
+  }
+
+  private void setReached(int state) {
+    reached[state >>> WORD_SHIFT] |= 1L << state;
+  }
+
+  private void setMove(int state, int move) {
+    int shift = (state & 1) * MOVE_BITS;
+    moves[state >> 1] = (byte) ((moves[state >> 1] & ~(NO_MOVE << shift)) | (move << shift));
+  }
+
+  /**
+   * @return the ordinal of the first move of the fastest route from a state, {@link #NO_MOVE} if there is none
+   */
+  int getMove(int state) {
+    return (moves[state >> 1] >> ((state & 1) * MOVE_BITS)) & NO_MOVE;
+  }
+
+  /**
+   * @return the turns of the fastest route from a state, 0 if the finish line can not be reached from it
+   */
+  int getTurnsToGo(int state) {
+    return turnsToGo[state];
+  }
+
+  /**
+   * @return the index of a state, {@link #NO_STATE} if it is not in the table
+   */
+  int indexOf(int x, int y, int velocityX, int velocityY) {
+    return indexOf(x, y, velocityX, velocityY, true);
+  }
+
+  /**
+   * @param reachedOnly whether states which were not reached from the start positions have no index
+   */
+  private int indexOf(int x, int y, int velocityX, int velocityY, boolean reachedOnly) {
+    if (x < 0 || y < 0 || x >= width || y >= height
+            || Math.abs(velocityX) > maxSpeedX || Math.abs(velocityY) > maxSpeedY) {
+      return NO_STATE;
+    }
+    int slot = slots[y * width + x];
+    if (slot == NO_SLOT) {
+      return NO_STATE;
+    }
+    int state = slot * span + (velocityY + maxSpeedY) * spanX + velocityX + maxSpeedX;
+    return !reachedOnly || isReached(state) ? state : NO_STATE;
+  }
+
+  /**
+   * Returns the first move of the fastest route from a state.
+   *
+   * @param position position of the car
+   * @param velocity velocity of the car
+   * @return the move, null if the state is not in the table or the finish line can not be reached from it
+   */
+  public PositionVector.Direction getMove(PositionVector position, PositionVector velocity) {
+    int state = indexOf(position.getX(), position.getY(), velocity.getX(), velocity.getY());
+    if (state == NO_STATE || getMove(state) == NO_MOVE) {
+      return null;
+    }
+    return DIRECTIONS[getMove(state)];
+  }
+
+  /**
+   * Returns the number of turns of the fastest route from a state.
+   *
+   * @param position position of the car
+   * @param velocity velocity of the car
+   * @return the number of turns including the winning move, 0 if the state is not in the table or the finish
+   * line can not be reached from it
+   */
+  public int getTurnsToGo(PositionVector position, PositionVector velocity) {
+    int state = indexOf(position.getX(), position.getY(), velocity.getX(), velocity.getY());
+    return state == NO_STATE ? 0 : turnsToGo[state];
+  }
+
+  /**
+   * Follows the table from a state to the finish line.
+   *
+   * @param position start position of the car
+   * @param velocity start velocity of the car
+   * @return the moves of the fastest route, empty if the finish line can not be reached
+   */
+  public List<PositionVector.Direction> route(PositionVector position, PositionVector velocity) {
+    List<PositionVector.Direction> route = new ArrayList<>();
+    int x = position.getX();
+    int y = position.getY();
+    int velocityX = velocity.getX();
+    int velocityY = velocity.getY();
+    int state = indexOf(x, y, velocityX, velocityY);
+    while (state != NO_STATE && getMove(state) != NO_MOVE) {
+      PositionVector.Direction move = DIRECTIONS[getMove(state)];
+      route.add(move);
+      if (turnsToGo[state] == 1) {
+        break;
+      }
+      velocityX += move.vector.getX();
+      velocityY += move.vector.getY();
+      x += velocityX;
+      y += velocityY;
+      state = indexOf(x, y, velocityX, velocityY);
+    }
+    return route;
+  }
+
+  /**
+   * @return number of states in the table
+   */
+  public int size() {
+    return stateCount;
+  }
+}
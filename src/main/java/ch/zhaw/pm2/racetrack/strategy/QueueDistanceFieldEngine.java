@@ -0,0 +1,40 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+/**
+ * Distance field engine running a breadth first search, starting from all source cells at once.
+ * Every free cell is visited once, the distance of a cell is one more than the distance of the
+ * neighbour it was reached from. The queue is a primitive int array of cell indices.
+ */
+public class QueueDistanceFieldEngine implements DistanceFieldEngine {
+
+  @Override
+  public void fill(int[][] distanceGrid, int sourceDistance) {
+    if (sourceDistance == FREE) {
+      throw new IllegalArgumentException("The source distance must not be the value of a free cell");
+    }
+    int width = distanceGrid.length;
+    int height = distanceGrid[0].length;
+    int[] queue = new int[width * height];
+    int tail = 0;
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        if (distanceGrid[x][y] == sourceDistance) {
+          queue[tail++] = x * height + y;
+        }
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      int x = queue[head] / height;
+      int y = queue[head] % height;
+      int distance = distanceGrid[x][y] + 1;
+      for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++) {
+        for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++) {
+          if (distanceGrid[i][j] == FREE) {
+            distanceGrid[i][j] = distance;
+            queue[tail++] = i * height + j;
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,247 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.game.LineWalker;
+import ch.zhaw.pm2.racetrack.game.Track;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Spaces booked by the cars on a track for the turns to come, so that path finders can plan around each other.
+ *
+ * <p>A booking is a space and a turn of the race, packed into one {@code long} key of a {@link LongIntHashMap}
+ * which maps it to the id of the car. A move books every space on its line, including the spaces where it
+ * starts and ends. So the space a car stands on is booked while the other cars move before and after it in
+ * the same round. A path finder checks its moves against the bookings of the other cars and books its own route
+ * once it is planned, the car which booked a space first keeps it. Every check is one lookup per space of the
+ * line, independent of the number of cars.</p>
+ *
+ * <p>The table counts the turns of the race itself, so all path finders book against the same turns, also the
+ * ones created during the race. Every car which is still racing makes one move per turn, a path finder records
+ * each move of its car with {@link #recordMove(char)}. A new turn starts when a car moves a second time. When a
+ * new race starts on the track, {@link #reset(Track)} drops the bookings and the turns of the last race.</p>
+ *
+ * <p>The table of a track is shared by all path finders on it, see {@link #of(Track)}. It is not thread safe,
+ * the cars plan one after the other.</p>
+ */
+public final class ReservationTable {
+  /**
+   * Owner of a space which is not booked.
+   */
+  public static final int NO_CAR = -1;
+  private static final Map<Track, ReservationTable> SHARED = new WeakHashMap<>();
+
+  private final int width;
+  private final int height;
+  private final LongIntHashMap bookings = new LongIntHashMap();
+  /**
+   * Keys booked by each car, so they can be released at once.
+   */
+  private final Map<Character, CarBookings> bookingsByCar = new HashMap<>();
+  private final LineWalker lineWalker = new LineWalker();
+  /**
+   * Cars which have moved in the current turn.
+   */
+  private final Set<Character> movedCars = new HashSet<>();
+  private int turn;
+  private int race;
+
+  /**
+   * Keys of the bookings of one car.
+   */
+  private static final class CarBookings {
+    private long[] keys = new long[64];
+    private int size;
+
+    void add(long key) {
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, 2 * size);
+      }
+      keys[size++] = key;
+    }
+  }
+
+  /**
+   * Creates an empty table.
+   *
+   * @param width  width of the board
+   * @param height height of the board
+   */
+  public ReservationTable(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns the table shared by all path finders on a track, which is created on the first request and kept
+   * as long as the track is in use.
+   *
+   * @param track the track
+   * @return the shared table of the track
+   */
+  public static synchronized ReservationTable of(Track track) {
+    return SHARED.computeIfAbsent(track, key -> new ReservationTable(key.getWidth(), key.getHeight()));
+  }
+
+  /**
+   * Resets the shared table of a track, if there is one, when a new race starts on it.
+   *
+   * @param track the track
+   */
+  public static synchronized void reset(Track track) {
+    ReservationTable table = SHARED.get(track);
+    if (table != null) {
+      table.reset();
+    }
+  }
+
+  /**
+   * Drops all bookings and starts counting the turns from 0 again.
+   */
+  public void reset() {
+    bookings.clear();
+    bookingsByCar.clear();
+    movedCars.clear();
+    turn = 0;
+    race++;
+  }
+
+  /**
+   * Records that a car made its move of the current turn. If it has already moved in the current turn, the
+   * move is the first one of the next turn.
+   *
+   * @param carId id of the car
+   */
+  public void recordMove(char carId) {
+    if (!movedCars.add(carId)) {
+      movedCars.clear();
+      movedCars.add(carId);
+      turn++;
+    }
+  }
+
+  /**
+   * @param carId id of a car
+   * @return the turn of the race in which the car makes its next move
+   */
+  public int getNextTurn(char carId) {
+    return movedCars.contains(carId) ? turn + 1 : turn;
+  }
+
+  /**
+   * @return the number of times the table was reset, bookings made before a reset are gone
+   */
+  public int getRace() {
+    return race;
+  }
+
+  /**
+   * Checks whether a move only passes spaces which no other car booked for the turn.
+   *
+   * @param carId  id of the car making the move, its own bookings are ignored
+   * @param startX column of the start position
+   * @param startY row of the start position
+   * @param endX   column of the end position
+   * @param endY   row of the end position
+   * @param turn   turn of the race in which the move is made
+   * @return true if no space of the line is booked by another car
+   */
+  public boolean isFree(char carId, int startX, int startY, int endX, int endY, int turn) {
+    if (bookings.size() == bookingCount(carId)) {
+      return true;
+    }
+    LineWalker line = lineWalker.start(startX, startY, endX, endY);
+    while (line.next()) {
+      int owner = getOwner(line.getX(), line.getY(), turn);
+      if (owner != NO_CAR && owner != carId) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Books the spaces of a move for a car. Spaces which are already booked keep their owner.
+   *
+   * @param carId  id of the car making the move
+   * @param startX column of the start position
+   * @param startY row of the start position
+   * @param endX   column of the end position
+   * @param endY   row of the end position
+   * @param turn   turn of the race in which the move is made
+   */
+  public void book(char carId, int startX, int startY, int endX, int endY, int turn) {
+    CarBookings carBookings = bookingsByCar.computeIfAbsent(carId, id -> new CarBookings());
+    LineWalker line = lineWalker.start(startX, startY, endX, endY);
+    while (line.next()) {
+      if (!isOnBoard(line.getX(), line.getY())) {
+        continue;
+      }
+      long key = key(line.getX(), line.getY(), turn);
+      if (bookings.get(key, NO_CAR) == NO_CAR) {
+        bookings.put(key, carId);
+        carBookings.add(key);
+      }
+    }
+  }
+
+  /**
+   * Releases all bookings of a car, before it books a new route or when it stops racing.
+   *
+   * @param carId id of the car
+   */
+  public void release(char carId) {
+    CarBookings carBookings = bookingsByCar.remove(carId);
+    if (carBookings == null) {
+      return;
+    }
+    for (int index = 0; index < carBookings.size; index++) {
+      bookings.remove(carBookings.keys[index]);
+    }
+  }
+
+  /**
+   * @param x    column of the space
+   * @param y    row of the space
+   * @param turn turn of the race
+   * @return the id of the car which booked the space for the turn, {@link #NO_CAR} if it is free
+   */
+  public int getOwner(int x, int y, int turn) {
+    if (!isOnBoard(x, y) || turn < 0) {
+      return NO_CAR;
+    }
+    return bookings.get(key(x, y, turn), NO_CAR);
+  }
+
+  /**
+   * @param carId id of a car
+   * @return true if another car has booked any space
+   */
+  public boolean hasBookingsOfOtherCars(char carId) {
+    return bookings.size() > bookingCount(carId);
+  }
+
+  /**
+   * @return number of booked spaces of all cars and turns
+   */
+  public int size() {
+    return bookings.size();
+  }
+
+  private int bookingCount(char carId) {
+    CarBookings carBookings = bookingsByCar.get(carId);
+    return carBookings == null ? 0 : carBookings.size;
+  }
+
+  private boolean isOnBoard(int x, int y) {
+    return x >= 0 && y >= 0 && x < width && y < height;
+  }
+
+  private long key(int x, int y, int turn) {
+    return ((long) turn * height + y) * width + x;
+  }
+}
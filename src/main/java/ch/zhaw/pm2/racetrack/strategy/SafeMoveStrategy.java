@@ -0,0 +1,106 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.game.Car;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.TrackLayout;
+
+import static ch.zhaw.pm2.racetrack.game.PositionVector.Direction;
+
+/**
+ * Safety filter around another move strategy.
+ *
+ * <p>Every move of the wrapped strategy is checked against the {@link ViabilityKernel} of the track: a move
+ * is vetoed if the car would crash or end in a state from which the finish line can no longer be reached,
+ * and replaced by the move which stays in the kernel and ends closest to the finish line. Moves which win are
+ * always allowed. As long as the car is in a state outside of the kernel, there is nothing left to protect and
+ * the moves are passed on.</p>
+ *
+ * <p>On boards whose kernel would be too large, see {@link Config#getPolicyTableMaxStates()}, only the moves
+ * which crash at once are vetoed. They are replaced by the move which gets closest to the finish line without
+ * crashing.</p>
+ */
+public class SafeMoveStrategy implements MoveStrategy {
+  private final MoveStrategy strategy;
+  private final Car car;
+  private final PathFinderStrategy pathFinder;
+  private final ViabilityKernel viabilityKernel;
+  private int vetoedMoves;
+
+  /**
+   * @param strategy the strategy whose moves are checked
+   * @param car      the car moved by the strategy, at its start position
+   * @param layout   the layout of the track
+   * @param config   the configuration, see {@link PathFinderStrategy#PathFinderStrategy(TrackLayout, PositionVector,
+   *                 PathFinderStrategy.PlanningMode, Config)}
+   */
+  public SafeMoveStrategy(MoveStrategy strategy, Car car, TrackLayout layout, Config config) {
+    this.strategy = strategy;
+    this.car = car;
+    pathFinder = new PathFinderStrategy(layout, car.getPosition(), PathFinderStrategy.PlanningMode.DEPTH_FIRST,
+            config);
+    viabilityKernel = pathFinder.getViabilityKernel();
+  }
+
+  @Override
+  public Direction nextMove() {
+    Direction move = strategy.nextMove();
+    PositionVector position = car.getPosition();
+    PositionVector velocity = car.getVelocity();
+    if (viabilityKernel != null && !viabilityKernel.contains(position, velocity)
+            || isSafe(position, velocity, move)) {
+      return move;
+    }
+    Direction closest = closestSafeMove(position, velocity);
+    if (closest == null) {
+      return move;
+    }
+    vetoedMoves++;
+    return closest;
+  }
+
+  /**
+   * @return the safe move which ends closest to the finish line, null if there is none
+   */
+  private Direction closestSafeMove(PositionVector position, PositionVector velocity) {
+    Direction closest = null;
+    int closestDistance = Integer.MAX_VALUE;
+    for (Direction move : Direction.values()) {
+      if (!isSafe(position, velocity, move)) {
+        continue;
+      }
+      PositionVector nextPosition = PositionVector.add(position, PositionVector.add(velocity, move.vector));
+      int distance = pathFinder.willFinish(position, nextPosition)
+              ? 0 : pathFinder.getDistanceGrid(nextPosition.getX(), nextPosition.getY());
+      if (distance < closestDistance) {
+        closest = move;
+        closestDistance = distance;
+      }
+    }
+    return closest;
+  }
+
+  /**
+   * @return true if the move wins or keeps the car in the kernel, or does not crash if there is no kernel
+   */
+  private boolean isSafe(PositionVector position, PositionVector velocity, Direction move) {
+    if ((pathFinder.legalMoves(position.getX(), position.getY(), velocity.getX(), velocity.getY())
+            & (1 << move.ordinal())) == 0) {
+      return false;
+    }
+    PositionVector nextVelocity = PositionVector.add(velocity, move.vector);
+    PositionVector nextPosition = PositionVector.add(position, nextVelocity);
+    if (pathFinder.willFinish(position, nextPosition)) {
+      return true;
+    }
+    return !pathFinder.crossesFinishLine(position, nextPosition)
+            && (viabilityKernel == null || viabilityKernel.contains(nextPosition, nextVelocity));
+  }
+
+  /**
+   * @return number of moves of the wrapped strategy which were replaced
+   */
+  public int getVetoedMoves() {
+    return vetoedMoves;
+  }
+}
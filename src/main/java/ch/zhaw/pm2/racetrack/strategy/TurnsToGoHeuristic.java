@@ -0,0 +1,58 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+/**
+ * Lower bound on the number of turns a car needs from a state to the finish line, from the distance grid of a
+ * {@link PathFinderStrategy} and the speed of the car.
+ *
+ * <p>The speed of a car is the larger of both velocity components, and it grows by at most one per turn. The
+ * bound ignores the walls and the direction of the velocity, so it never overestimates and any search strategy
+ * can query it as its heuristic, see {@link AStarPlanner}. Whether the finish line can be reached from a state
+ * at all is known to the {@link ViabilityKernel}.</p>
+ */
+public final class TurnsToGoHeuristic {
+  private static final int SLACK = 2;
+
+  private TurnsToGoHeuristic() {
+  }
+
+  /**
+   * Estimates the number of turns from a state to the finish line.
+   *
+   * @param pathFinder the path finder providing the distance grid
+   * @param x          column of the car
+   * @param y          row of the car
+   * @param velocityX  horizontal velocity of the car
+   * @param velocityY  vertical velocity of the car
+   * @return a lower bound of at least one turn, see {@link #lowerBound(int, int)}
+   */
+  public static int estimate(PathFinderStrategy pathFinder, int x, int y, int velocityX, int velocityY) {
+    return lowerBound(pathFinder.getDistanceGrid(x, y), Math.max(Math.abs(velocityX), Math.abs(velocityY)));
+  }
+
+  /**
+   * Lower bound which only looks at the number of steps to the finish line: the smallest {@code t} with
+   * {@code t * s + t * (t + 1) / 2 >= d - 2}, since a car can speed up by at most one space per turn. The
+   * slack of two spaces covers the last move, which may enter the finish line from a space next to an end
+   * node. The bound never overestimates as long as the space behind every finish line space is free.
+   *
+   * @param distance number of steps from the space of the car to the finish line
+   * @param speed    speed of the car
+   * @return the smallest number of turns in which a car with the given speed can cover the distance
+   */
+  public static int lowerBound(int distance, int speed) {
+    long spaces = Math.max(0, distance - SLACK);
+    long b = 2L * speed + 1;
+    int turns = (int) Math.ceil((Math.sqrt((double) b * b + 8.0 * spaces) - b) / 2);
+    while (turns > 1 && coveredSpaces(turns - 1, speed) >= spaces) {
+      turns--;
+    }
+    while (coveredSpaces(turns, speed) < spaces) {
+      turns++;
+    }
+    return Math.max(1, turns);
+  }
+
+  private static long coveredSpaces(long turns, long speed) {
+    return turns * speed + turns * (turns + 1) / 2;
+  }
+}
@@ -0,0 +1,333 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The states (x, y, vx, vy) of a track from which the finish line can still be reached without crashing.
+ *
+ * <p>The kernel is computed by a backward reachability pass over the legal moves: it starts at the states with a
+ * winning move and adds every state with a move to a state already in the kernel, following the moves backwards
+ * like the {@link PolicyTable}, but without recording moves or turns. Moves which cross the finish line without
+ * winning are not followed, like in the planners. The states are indexed densely like the states of the
+ * {@link PolicyTable}, by the spaces which are not walls and every velocity a car can reach on the board, and the
+ * kernel is stored as a bitset with one bit per state.</p>
+ *
+ * <p>Search strategies prune the states outside of the kernel at once, see {@link DepthFirstPlanner} and
+ * {@link AStarPlanner}, a {@link SafeMoveStrategy} vetoes the moves which leave it. A kernel is immutable and
+ * shared by all path finders on the same board, see {@link #shared(PathFinderStrategy, long)}.</p>
+ */
+public final class ViabilityKernel {
+  private static final int NO_STATE = -1;
+  private static final int NO_SLOT = -1;
+  private static final int WORD_SHIFT = 6;
+  private static final PositionVector.Direction[] DIRECTIONS = PositionVector.Direction.values();
+
+  private static final int SHARED_KERNELS = 4;
+  private static final Map<Key, ViabilityKernel> SHARED = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, ViabilityKernel> eldest) {
+      return size() > SHARED_KERNELS;
+    }
+  };
+
+  private final int width;
+  private final int height;
+  private final int maxSpeedX;
+  private final int maxSpeedY;
+  /**
+   * Number of horizontal velocities from {@code -maxSpeedX} to {@code maxSpeedX}.
+   */
+  private final int spanX;
+  /**
+   * Number of velocities of each space.
+   */
+  private final int span;
+  /**
+   * Slot of each row-major cell, {@link #NO_SLOT} for walls.
+   */
+  private final int[] slots;
+  /**
+   * Row-major cell of each slot.
+   */
+  private final int[] cells;
+  /**
+   * Bit per state, set if the finish line can be reached from the state.
+   */
+  private final long[] viable;
+  private int size;
+
+  private record Key(int width, int height, long contentHash) {
+  }
+
+  private ViabilityKernel(PathFinderStrategy pathFinder) {
+    width = pathFinder.width;
+    height = pathFinder.height;
+    maxSpeedX = PolicyTable.maxSpeed(width);
+    maxSpeedY = PolicyTable.maxSpeed(height);
+    spanX = 2 * maxSpeedX + 1;
+    span = spanX * (2 * maxSpeedY + 1);
+    slots = new int[width * height];
+    int slotCount = 0;
+    for (int cell = 0; cell < slots.length; cell++) {
+      slots[cell] = pathFinder.getDistanceGrid(cell % width, cell / width) == pathFinder.WALL ? NO_SLOT : slotCount++;
+    }
+    long stateCount = (long) slotCount * span;
+    if (stateCount > PolicyTable.MAX_INDICES) {
+      throw new IllegalArgumentException("The board has too many states for a viability kernel: " + stateCount);
+    }
+    cells = new int[slotCount];
+    for (int cell = 0; cell < slots.length; cell++) {
+      if (slots[cell] != NO_SLOT) {
+        cells[slots[cell]] = cell;
+      }
+    }
+    viable = new long[(int) ((stateCount + Long.SIZE - 1) >>> WORD_SHIFT)];
+  }
+
+  /**
+   * Checks whether the kernel of a board has at most the given number of states, before any of it is allocated.
+   * The kernel has the same states as the {@link PolicyTable} of the board, so it shares its limit.
+   *
+   * @param pathFinder the path finder providing the distance grid
+   * @param maxStates  largest number of states allowed
+   * @return true if the kernel can be built within the limit
+   */
+  static boolean fits(PathFinderStrategy pathFinder, long maxStates) {
+    return PolicyTable.fits(pathFinder, maxStates);
+  }
+
+  /**
+   * Builds the kernel of a track.
+   *
+   * @param pathFinder the path finder providing the distance grid and the move checks
+   * @return the kernel of all states of the board from which the finish line can be reached
+   * @throws IllegalArgumentException if the board has more than {@link PolicyTable#MAX_INDICES} states
+   */
+  static ViabilityKernel build(PathFinderStrategy pathFinder) {
+    ViabilityKernel kernel = new ViabilityKernel(pathFinder);
+    kernel.searchBackwards(pathFinder, kernel.collectWinners(pathFinder));
+    return kernel;
+  }
+
+  /**
+   * Returns the kernel of a track from the kernels shared by all path finders, building it on the first request.
+   * The most recently used kernels are kept. Like the {@link PolicyTable}, the kernel is built without holding
+   * the lock of the shared kernels, so all threads get the kernel which was shared first.
+   *
+   * @param pathFinder  the path finder providing the distance grid and the move checks
+   * @param contentHash content hash of the board
+   * @return the shared kernel of the board
+   */
+  static ViabilityKernel shared(PathFinderStrategy pathFinder, long contentHash) {
+    Key key = new Key(pathFinder.width, pathFinder.height, contentHash);
+    synchronized (SHARED) {
+      ViabilityKernel kernel = SHARED.get(key);
+      if (kernel != null) {
+        return kernel;
+      }
+    }
+    ViabilityKernel kernel = build(pathFinder);
+    synchronized (SHARED) {
+      ViabilityKernel shared = SHARED.putIfAbsent(key, kernel);
+      return shared != null ? shared : kernel;
+    }
+  }
+
+  /**
+   * Adds the states with a winning move. A winning move passes a finish line space, which is at most as many
+   * spaces away from the car as the move is long, so only the spaces close enough to a finish line are checked.
+   *
+   * @return the states with a winning move
+   */
+  private int[] collectWinners(PathFinderStrategy pathFinder) {
+    int[] finishSteps = finishSteps(pathFinder);
+    int[] winners = new int[16];
+    int winnerCount = 0;
+    for (int slot = 0; slot < cells.length; slot++) {
+      int cell = cells[slot];
+      if (finishSteps[cell] > Math.max(maxSpeedX, maxSpeedY) + 1) {
+        continue;
+      }
+      int x = cell % width;
+      int y = cell / width;
+      PositionVector location = new PositionVector(x, y);
+      for (int velocityY = -maxSpeedY; velocityY <= maxSpeedY; velocityY++) {
+        for (int velocityX = -maxSpeedX; velocityX <= maxSpeedX; velocityX++) {
+          if (finishSteps[cell] > Math.max(Math.abs(velocityX), Math.abs(velocityY)) + 1
+                  || !hasWinningMove(pathFinder, location, velocityX, velocityY)) {
+            continue;
+          }
+          int state = indexOf(x, y, velocityX, velocityY);
+          setViable(state);
+          if (winnerCount == winners.length) {
+            winners = Arrays.copyOf(winners, 2 * winnerCount);
+          }
+          winners[winnerCount++] = state;
+        }
+      }
+    }
+    return Arrays.copyOf(winners, winnerCount);
+  }
+
+  private static boolean hasWinningMove(PathFinderStrategy pathFinder, PositionVector location,
+                                        int velocityX, int velocityY) {
+    int legalMoves = pathFinder.legalMoves(location.getX(), location.getY(), velocityX, velocityY);
+    for (PositionVector.Direction move : DIRECTIONS) {
+      if ((legalMoves & (1 << move.ordinal())) != 0 && pathFinder.willFinish(location, new PositionVector(
+              location.getX() + velocityX + move.vector.getX(), location.getY() + velocityY + move.vector.getY()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the number of king steps from each row-major cell to the closest finish line space, ignoring walls,
+   * {@link Integer#MAX_VALUE} if the board has no finish line
+   */
+  private int[] finishSteps(PathFinderStrategy pathFinder) {
+    int[] steps = new int[width * height];
+    Arrays.fill(steps, Integer.MAX_VALUE);
+    int[] queue = new int[steps.length];
+    int tail = 0;
+    for (int cell = 0; cell < steps.length; cell++) {
+      if (pathFinder.getDistanceGrid(cell % width, cell / width) == pathFinder.FINISH_LINE) {
+        steps[cell] = 0;
+        queue[tail++] = cell;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      int cell = queue[head];
+      int x = cell % width;
+      int y = cell / width;
+      for (int neighbourY = Math.max(0, y - 1); neighbourY <= Math.min(height - 1, y + 1); neighbourY++) {
+        for (int neighbourX = Math.max(0, x - 1); neighbourX <= Math.min(width - 1, x + 1); neighbourX++) {
+          int neighbour = neighbourY * width + neighbourX;
+          if (steps[neighbour] == Integer.MAX_VALUE) {
+            steps[neighbour] = steps[cell] + 1;
+            queue[tail++] = neighbour;
+          }
+        }
+      }
+    }
+    return steps;
+  }
+
+  /**
+   * Adds all states from which a winning state can be reached. The predecessors of a state with velocity v at
+   * position p are the states at p - v whose velocity plus one of the accelerations is v, if the move between
+   * both positions is allowed. The move is the same for all predecessors, so it is checked once.
+   */
+  private void searchBackwards(PathFinderStrategy pathFinder, int[] winners) {
+    int[] queue = Arrays.copyOf(winners, Math.max(1024, winners.length));
+    int head = 0;
+    int tail = winners.length;
+    while (head < tail) {
+      int state = queue[head++];
+      int cell = cells[state / span];
+      int x = cell % width;
+      int y = cell / width;
+      int velocityX = state % span % spanX - maxSpeedX;
+      int velocityY = state % span / spanX - maxSpeedY;
+      PositionVector previous = new PositionVector(x - velocityX, y - velocityY);
+      PositionVector position = new PositionVector(x, y);
+      if (!pathFinder.isInGrid(previous) || pathFinder.willCrash(previous, position)
+              || pathFinder.crossesFinishLine(previous, position)) {
+        continue;
+      }
+      for (PositionVector.Direction move : DIRECTIONS) {
+        int predecessor = indexOf(previous.getX(), previous.getY(),
+                velocityX - move.vector.getX(), velocityY - move.vector.getY());
+        if (predecessor == NO_STATE || isViable(predecessor)) {
+          continue;
+        }
+        setViable(predecessor);
+        if (tail == queue.length) {
+          queue = Arrays.copyOf(queue, 2 * tail);
+        }
+        queue[tail++] = predecessor;
+      }
+    }
+    size = tail;
+  }
+
+  private boolean isViable(int state) {
+    return (viable[state >>> WORD_SHIFT] & (1L << state)) != 0;
+  }
+
+  private void setViable(int state) {
+    viable[state >>> WORD_SHIFT] |= 1L << state;
+  }
+
+  /**
+   * @return the index of a state, {@link #NO_STATE} if the kernel does not know it
+   */
+  private int indexOf(int x, int y, int velocityX, int velocityY) {
+    if (x < 0 || y < 0 || x >= width || y >= height
+            || Math.abs(velocityX) > maxSpeedX || Math.abs(velocityY) > maxSpeedY) {
+      return NO_STATE;
+    }
+    int slot = slots[y * width + x];
+    return slot == NO_SLOT ? NO_STATE : slot * span + (velocityY + maxSpeedY) * spanX + velocityX + maxSpeedX;
+  }
+
+  /**
+   * Checks whether the finish line can be reached from a state.
+   *
+   * @param x         column of the car
+   * @param y         row of the car
+   * @param velocityX horizontal velocity of the car
+   * @param velocityY vertical velocity of the car
+   * @return true if the state is known and a route to the finish line exists
+   */
+  public boolean contains(int x, int y, int velocityX, int velocityY) {
+    int state = indexOf(x, y, velocityX, velocityY);
+    return state != NO_STATE && isViable(state);
+  }
+
+  /**
+   * @param position position of the car
+   * @param velocity velocity of the car
+   * @return true if the state is known and a route to the finish line exists
+   * @see #contains(int, int, int, int)
+   */
+  public boolean contains(PositionVector position, PositionVector velocity) {
+    return contains(position.getX(), position.getY(), velocity.getX(), velocity.getY());
+  }
+
+  /**
+   * Checks whether the finish line can not be reached from a state. States the kernel does not know, faster
+   * than any car on the board can drive or on a wall, are not doomed, so a search does not prune them.
+   *
+   * @param x         column of the car
+   * @param y         row of the car
+   * @param velocityX horizontal velocity of the car
+   * @param velocityY vertical velocity of the car
+   * @return true if the state is known and no route to the finish line exists
+   */
+  public boolean isDoomed(int x, int y, int velocityX, int velocityY) {
+    int state = indexOf(x, y, velocityX, velocityY);
+    return state != NO_STATE && !isViable(state);
+  }
+
+  /**
+   * @param position position of the car
+   * @param velocity velocity of the car
+   * @return true if the state is on a space which is not a wall and within the speeds of the board, so the kernel
+   * knows whether it is viable
+   */
+  public boolean isKnown(PositionVector position, PositionVector velocity) {
+    return indexOf(position.getX(), position.getY(), velocity.getX(), velocity.getY()) != NO_STATE;
+  }
+
+  /**
+   * @return number of states in the kernel
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,164 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import java.util.Arrays;
+
+/**
+ * Distance field engine expanding the whole frontier of a distance level at once.
+ *
+ * <p>The free cells and the frontier are stored as bitsets of {@code long} words, one bit per cell, with
+ * one bitset per column or per row (a lane). The next frontier is the current one shifted by one cell in
+ * all eight directions (shift and OR within a lane, OR of the neighbouring lanes), restricted to the free
+ * cells which have not been reached yet, so 64 cells are processed per word operation. Only the words next
+ * to an active frontier word are processed, so the work per level follows the frontier instead of the
+ * board. The cells of each frontier are then written once into the distance grid.</p>
+ *
+ * <p>The word operations pay off when the frontier runs along the lanes. The lanes are therefore chosen
+ * along the longer side of the bounding box of the sources, e.g. columns for a vertical finish line.
+ * Column lanes are preferred on ties, since they match the memory layout of the [x][y] distance grid.</p>
+ */
+public class WavefrontDistanceFieldEngine implements DistanceFieldEngine {
+  private static final int WORD_SHIFT = 6;
+
+  @Override
+  public void fill(int[][] distanceGrid, int sourceDistance) {
+    if (sourceDistance == FREE) {
+      throw new IllegalArgumentException("The source distance must not be the value of a free cell");
+    }
+    int width = distanceGrid.length;
+    int height = distanceGrid[0].length;
+    boolean columnLanes = hasColumnLanes(distanceGrid, sourceDistance);
+    int lanes = columnLanes ? width : height;
+    int laneLength = columnLanes ? height : width;
+    int words = (laneLength + Long.SIZE - 1) >>> WORD_SHIFT;
+    long[] free = new long[words * lanes];
+    long[] frontier = new long[words * lanes];
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        int lane = columnLanes ? x : y;
+        int position = columnLanes ? y : x;
+        int index = lane * words + (position >>> WORD_SHIFT);
+        if (distanceGrid[x][y] == FREE) {
+          free[index] |= 1L << position;
+        } else if (distanceGrid[x][y] == sourceDistance) {
+          frontier[index] |= 1L << position;
+        }
+      }
+    }
+    long[] next = new long[words * lanes];
+    int[] level = new int[words * lanes];
+    int[] activeWords = new int[16];
+    int activeCount = 0;
+    for (int index = 0; index < frontier.length; index++) {
+      if (frontier[index] != 0) {
+        activeWords = append(activeWords, activeCount++, index);
+      }
+    }
+    int[] candidates = new int[16];
+    int[] nextActiveWords = new int[16];
+    int distance = sourceDistance;
+    while (activeCount > 0) {
+      distance++;
+      int candidateCount = 0;
+      for (int active = 0; active < activeCount; active++) {
+        int lane = activeWords[active] / words;
+        int word = activeWords[active] % words;
+        for (int neighbourLane = Math.max(0, lane - 1); neighbourLane <= Math.min(lanes - 1, lane + 1); neighbourLane++) {
+          for (int neighbourWord = Math.max(0, word - 1); neighbourWord <= Math.min(words - 1, word + 1); neighbourWord++) {
+            int index = neighbourLane * words + neighbourWord;
+            if (level[index] != distance && free[index] != 0) {
+              level[index] = distance;
+              candidates = append(candidates, candidateCount++, index);
+            }
+          }
+        }
+      }
+      int nextCount = 0;
+      for (int candidate = 0; candidate < candidateCount; candidate++) {
+        int index = candidates[candidate];
+        int lane = index / words;
+        int word = index % words;
+        long neighbours = spread(frontier, index, word, words);
+        if (lane > 0) {
+          neighbours |= spread(frontier, index - words, word, words);
+        }
+        if (lane < lanes - 1) {
+          neighbours |= spread(frontier, index + words, word, words);
+        }
+        long cells = free[index] & neighbours;
+        if (cells != 0) {
+          free[index] &= ~cells;
+          next[index] = cells;
+          nextActiveWords = append(nextActiveWords, nextCount++, index);
+          writeDistances(distanceGrid, columnLanes, cells, lane, word, distance);
+        }
+      }
+      for (int active = 0; active < activeCount; active++) {
+        frontier[activeWords[active]] = 0L;
+      }
+      long[] swapBits = frontier;
+      frontier = next;
+      next = swapBits;
+      int[] swapWords = activeWords;
+      activeWords = nextActiveWords;
+      nextActiveWords = swapWords;
+      activeCount = nextCount;
+    }
+  }
+
+  /**
+   * Checks whether the bounding box of the source cells is at least as high as it is wide.
+   */
+  private static boolean hasColumnLanes(int[][] distanceGrid, int sourceDistance) {
+    int minX = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    for (int x = 0; x < distanceGrid.length; x++) {
+      for (int y = 0; y < distanceGrid[x].length; y++) {
+        if (distanceGrid[x][y] == sourceDistance) {
+          minX = Math.min(minX, x);
+          maxX = Math.max(maxX, x);
+          minY = Math.min(minY, y);
+          maxY = Math.max(maxY, y);
+        }
+      }
+    }
+    return maxY - minY >= maxX - minX;
+  }
+
+  /**
+   * Returns the frontier cells of a word together with their left and right neighbour cells.
+   */
+  private static long spread(long[] frontier, int index, int word, int words) {
+    long cells = frontier[index];
+    long spread = cells | cells << 1 | cells >>> 1;
+    if (word > 0) {
+      spread |= frontier[index - 1] >>> (Long.SIZE - 1);
+    }
+    if (word < words - 1) {
+      spread |= frontier[index + 1] << (Long.SIZE - 1);
+    }
+    return spread;
+  }
+
+  private static int[] append(int[] values, int count, int value) {
+    if (count == values.length) {
+      values = Arrays.copyOf(values, 2 * count);
+    }
+    values[count] = value;
+    return values;
+  }
+
+  private static void writeDistances(int[][] distanceGrid, boolean columnLanes, long cells, int lane, int word,
+                                     int distance) {
+    while (cells != 0) {
+      int position = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(cells);
+      if (columnLanes) {
+        distanceGrid[lane][position] = distance;
+      } else {
+        distanceGrid[position][lane] = distance;
+      }
+      cells &= cells - 1;
+    }
+  }
+}
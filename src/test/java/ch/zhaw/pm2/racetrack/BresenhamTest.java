@@ -1,12 +1,15 @@
 package ch.zhaw.pm2.racetrack;
 
 import ch.zhaw.pm2.racetrack.game.BresenhamAlgorithm;
+import ch.zhaw.pm2.racetrack.game.LineWalker;
 import ch.zhaw.pm2.racetrack.game.PositionVector;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class BresenhamTest {
@@ -93,5 +96,59 @@ public class BresenhamTest {
     assertEquals(new PositionVector(18, 7), points.get(18));
   }
 
+  /**
+   * Tests that the line walker visits the same positions as the wrapper and can be reused
+   */
+  @Test
+  public void line_walker_visits_the_positions_of_calculate_path() {
+    LineWalker lineWalker = new LineWalker();
+    for (int endX = -5; endX <= 5; endX++) {
+      for (int endY = -5; endY <= 5; endY++) {
+        List<PositionVector> points = new BresenhamAlgorithm().calculatePath(new PositionVector(1, 2), new PositionVector(endX, endY));
+        LineWalker line = lineWalker.start(1, 2, endX, endY);
+        for (PositionVector point : points) {
+          assertTrue(line.next());
+          assertEquals(point, new PositionVector(line.getX(), line.getY()));
+        }
+        assertFalse(line.next());
+      }
+    }
+  }
+
+  /**
+   * Tests that lines longer than the cached offsets are walked in single steps on the fast axis
+   */
+  @Test
+  public void long_lines_are_walked_in_single_steps() {
+    List<PositionVector> points = new BresenhamAlgorithm().calculatePath(new PositionVector(5, 5), new PositionVector(-355, 145));
+    assertEquals(361, points.size());
+    assertEquals(new PositionVector(-355, 145), points.get(360));
+    int diagonalSteps = 0;
+    for (int i = 1; i < points.size(); i++) {
+      assertEquals(points.get(i - 1).getX() - 1, points.get(i).getX());
+      diagonalSteps += points.get(i).getY() - points.get(i - 1).getY();
+    }
+    assertEquals(140, diagonalSteps);
+  }
 
+  /**
+   * Tests that the line walker groups the positions of the wikipedia example by row and stops when asked to
+   */
+  @Test
+  public void line_walker_walks_rows_and_stops_early() {
+    LineWalker line = new LineWalker().start(0, 0, 18, 7);
+    assertTrue(line.nextRun());
+    assertEquals(0, line.getY());
+    assertEquals(0, line.getRunMinX());
+    assertEquals(1, line.getRunMaxX());
+    assertTrue(line.nextRun());
+    assertEquals(1, line.getY());
+    assertEquals(2, line.getRunMinX());
+    assertEquals(3, line.getRunMaxX());
+
+    int[] visited = new int[1];
+    assertTrue(LineWalker.walk(0, 0, 18, 7, (x, y) -> ++visited[0] == 5));
+    assertEquals(5, visited[0]);
+    assertFalse(LineWalker.walk(0, 0, 18, 7, (x, y) -> false));
+  }
 }
@@ -1,12 +1,20 @@
 package ch.zhaw.pm2.racetrack;
 
 import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.BresenhamAlgorithm;
+import ch.zhaw.pm2.racetrack.game.CompiledTrack;
+import ch.zhaw.pm2.racetrack.game.LegalMoveTable;
 import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.SpaceMask;
+import ch.zhaw.pm2.racetrack.game.SpaceSums;
 import ch.zhaw.pm2.racetrack.game.Track;
+import ch.zhaw.pm2.racetrack.game.TrackLayout;
 import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
 import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -89,6 +97,207 @@ public class TrackTest {
             track.getSpaceType(new PositionVector(6, 0)));
   }
 
+  /**
+   * Tests if the ordinal lookups by coordinates and by cell index agree with the space types.
+   */
+  @Test
+  public void space_type_ordinals_match_space_types() throws InvalidTrackFormatException, FileNotFoundException {
+    File file = new File("./tracks/testingTracks/all-characters.txt");
+    Track track = new Track(file);
+    for (int y = 0; y < track.getHeight(); y++) {
+      for (int x = 0; x < track.getWidth(); x++) {
+        ConfigSpecification.SpaceType expected = track.getSpaceType(new PositionVector(x, y));
+        assertEquals(expected.ordinal(), track.getSpaceTypeOrdinal(x, y));
+        assertEquals(expected, Track.spaceTypeOf(track.getSpaceTypeOrdinal(track.cellIndex(x, y))));
+        assertEquals(expected, track.getGrid()[x][y]);
+      }
+    }
+  }
+
+  /**
+   * Tests if loading a track reports the number of bytes and spaces read.
+   */
+  @Test
+  public void load_statistics_report_file_size_and_spaces() throws InvalidTrackFormatException, FileNotFoundException {
+    File file = new File("./tracks/oval-clock-up.txt");
+    Track oval = new Track(file);
+    assertEquals(file.length(), oval.getLoadStatistics().getBytes());
+    assertEquals(50 * 14, oval.getLoadStatistics().getSpaces());
+    assertTrue(oval.getLoadStatistics().getBytesPerSecond() > 0);
+  }
+
+  /**
+   * Tests if a memory-mapped track contains the same board and cars as a track read as text.
+   */
+  @Test
+  public void mapped_track_equals_text_track() throws InvalidTrackFormatException, FileNotFoundException {
+    File file = new File("./tracks/testingTracks/all-characters-and-cars.txt");
+    Track textTrack = new Track(file);
+    Track mappedTrack = Track.fromMappedFile(file);
+    assertEquals(textTrack.toString(), mappedTrack.toString());
+    assertEquals(textTrack.getCarCount(), mappedTrack.getCarCount());
+    assertEquals(textTrack.getCarPos(3), mappedTrack.getCarPos(3));
+  }
+
+  /**
+   * Tests if the exceptions of the text loader are also thrown when mapping a track file.
+   */
+  @Test
+  public void mapped_track_throws_InvalidTrackFormatException_like_text_track() {
+    assertThrows(InvalidTrackFormatException.class,
+            () -> Track.fromMappedFile(new File("./tracks/testingTracks/differing-line-widths.txt")));
+    assertThrows(InvalidTrackFormatException.class,
+            () -> Track.fromMappedFile(new File("./tracks/testingTracks/empty.txt")));
+    assertThrows(FileNotFoundException.class,
+            () -> Track.fromMappedFile(new File("./tracks/testingTracks/does-not-exist.txt")));
+  }
+
+  /**
+   * Tests if a compiled track is loaded with the same board and cars as its text track.
+   */
+  @Test
+  public void compiled_track_equals_text_track() throws InvalidTrackFormatException, IOException {
+    File file = new File("./tracks/testingTracks/all-characters-and-cars.txt");
+    File compiled = File.createTempFile("all-characters-and-cars", CompiledTrack.FILE_EXTENSION);
+    compiled.deleteOnExit();
+    Track textTrack = new Track(file);
+    CompiledTrack.write(textTrack.getLayout(), compiled);
+    assertTrue(CompiledTrack.isCompiled(compiled));
+    assertFalse(CompiledTrack.isCompiled(file));
+    Track compiledTrack = new Track(compiled);
+    assertEquals(textTrack.toString(), compiledTrack.toString());
+    assertEquals(textTrack.getCarCount(), compiledTrack.getCarCount());
+    assertEquals(textTrack.getCarId(3), compiledTrack.getCarId(3));
+    assertEquals(textTrack.getCarPos(3), compiledTrack.getCarPos(3));
+    assertEquals(textTrack.getLayout().getFinishCellCount(), compiledTrack.getLayout().getFinishCellCount());
+  }
+
+  /**
+   * Tests if a corrupt compiled track is rejected by its checksum.
+   */
+  @Test
+  public void corrupt_compiled_track_throws_InvalidTrackFormatException() throws InvalidTrackFormatException, IOException {
+    File compiled = File.createTempFile("oval-clock-up", CompiledTrack.FILE_EXTENSION);
+    compiled.deleteOnExit();
+    CompiledTrack.write(TrackLayout.load(new File("./tracks/oval-clock-up.txt")), compiled);
+    try (RandomAccessFile file = new RandomAccessFile(compiled, "rw")) {
+      file.seek(file.length() / 2);
+      int value = file.read();
+      file.seek(file.length() / 2);
+      file.write(value ^ 0x01);
+    }
+    assertThrows(InvalidTrackFormatException.class, () -> new Track(compiled));
+  }
+
+  /**
+   * Tests if the space mask holds the walls and finish line spaces of the track.
+   */
+  @Test
+  public void space_mask_matches_space_types() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/finish-line-in-all-directions.txt"));
+    SpaceMask spaceMask = track.getSpaceMask();
+    for (int y = 0; y < track.getHeight(); y++) {
+      for (int x = 0; x < track.getWidth(); x++) {
+        ConfigSpecification.SpaceType spaceType = track.getSpaceType(new PositionVector(x, y));
+        assertEquals(spaceType == ConfigSpecification.SpaceType.WALL, spaceMask.isWall(x, y));
+        assertEquals(spaceType == ConfigSpecification.SpaceType.WALL, spaceMask.hasWallInRow(y, x, x));
+        assertEquals(new Config().isFinishLine(spaceType), spaceMask.hasFinishInRectangle(x, y, x, y));
+      }
+    }
+    assertTrue(spaceMask.isWall(-1, 0));
+    assertTrue(spaceMask.hasWallInRectangle(0, 0, track.getWidth(), 0));
+    assertFalse(spaceMask.hasFinishInRectangle(-5, -5, -1, -1));
+  }
+
+  /**
+   * Tests if the rectangle queries of the space sums match the ones of the space mask.
+   */
+  @Test
+  public void space_sums_rectangle_queries_match_space_mask() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-anticlock-right.txt"));
+    SpaceMask spaceMask = track.getSpaceMask();
+    SpaceSums spaceSums = track.getSpaceSums();
+    for (int y = 0; y < track.getHeight(); y++) {
+      for (int x = 0; x < track.getWidth(); x++) {
+        for (int size = 0; size < 8; size++) {
+          assertEquals(spaceMask.hasWallInRectangle(x, y, x + size, y + size / 2),
+                  spaceSums.hasWallInRectangle(x, y, x + size, y + size / 2));
+          assertEquals(spaceMask.hasFinishInRectangle(x - size, y, x, y + size),
+                  spaceSums.hasFinishInRectangle(x - size, y, x, y + size));
+        }
+      }
+    }
+    PositionVector carPosition = track.getCarPos(0);
+    assertEquals(0, spaceSums.countWalls(carPosition.getX(), carPosition.getY(), carPosition.getX(), carPosition.getY()));
+    assertEquals(track.getWidth(), spaceSums.countWalls(0, 0, track.getWidth() - 1, 0));
+  }
+
+  /**
+   * Tests if the line queries of the space mask find the same spaces as a walk along the Bresenham path.
+   */
+  @Test
+  public void space_mask_line_queries_match_bresenham_path() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/challenge.txt"));
+    SpaceMask spaceMask = track.getSpaceMask();
+    BresenhamAlgorithm bresenham = new BresenhamAlgorithm();
+    PositionVector start = new PositionVector(track.getWidth() / 2, track.getHeight() / 2);
+    for (int y = 0; y < track.getHeight(); y++) {
+      for (int x = 0; x < track.getWidth(); x++) {
+        PositionVector end = new PositionVector(x, y);
+        boolean wall = false;
+        boolean finishUp = false;
+        for (PositionVector position : bresenham.calculatePath(start, end)) {
+          wall |= track.getSpaceType(position) == ConfigSpecification.SpaceType.WALL;
+          finishUp |= track.getSpaceType(position) == ConfigSpecification.SpaceType.FINISH_UP;
+        }
+        assertEquals(wall, spaceMask.hasWallOnLine(start, end));
+        assertEquals(finishUp, spaceMask.hasFinishOnLine(ConfigSpecification.SpaceType.FINISH_UP, start, end));
+      }
+    }
+    assertTrue(spaceMask.hasWallOnLine(start, new PositionVector(-1, 0)));
+  }
+
+  /**
+   * Tests if the legal move table allows exactly the moves whose Bresenham path stays on the board and
+   * passes no wall.
+   */
+  @Test
+  public void legal_move_table_matches_bresenham_path() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/challenge.txt"));
+    LegalMoveTable legalMoves = track.getLayout().getLegalMoves(3);
+    BresenhamAlgorithm bresenham = new BresenhamAlgorithm();
+    for (int y = 0; y < track.getHeight(); y++) {
+      for (int x = 0; x < track.getWidth(); x++) {
+        PositionVector start = new PositionVector(x, y);
+        if (track.getSpaceType(start) == ConfigSpecification.SpaceType.WALL) {
+          continue;
+        }
+        for (int velocityY = -3; velocityY <= 3; velocityY++) {
+          for (int velocityX = -3; velocityX <= 3; velocityX++) {
+            int expected = 0;
+            for (PositionVector.Direction move : PositionVector.Direction.values()) {
+              PositionVector end = new PositionVector(x + velocityX + move.vector.getX(), y + velocityY + move.vector.getY());
+              boolean wall = false;
+              for (PositionVector position : bresenham.calculatePath(start, end)) {
+                wall |= track.getSpaceType(position) == ConfigSpecification.SpaceType.WALL;
+              }
+              if (!wall) {
+                expected |= 1 << move.ordinal();
+              }
+            }
+            assertEquals(expected, legalMoves.getLegalMoves(x, y, velocityX, velocityY));
+          }
+        }
+      }
+    }
+    assertTrue(legalMoves.covers(-3, 3));
+    assertFalse(legalMoves.covers(4, 0));
+    LegalMoveTable slowMoves = track.getLayout().getLegalMoves(1);
+    assertEquals(1, slowMoves.getMaxSpeed());
+    assertSame(legalMoves, track.getLayout().getLegalMoves(3));
+    assertSame(slowMoves, track.getLayout().getLegalMoves(1));
+  }
+
   /**
    * Tests if the amount of cars is valid.
    */
@@ -175,6 +384,50 @@ public class TrackTest {
     assertEquals('b', car2);
   }
 
+  /**
+   * Tests if moved, stacked and crashed cars are found at their new positions.
+   */
+  @Test
+  public void cars_are_found_at_their_position_after_moving() throws InvalidTrackFormatException, FileNotFoundException {
+    File file = new File("./tracks/testingTracks/two-cars.txt");
+    Track track = new Track(file);
+    PositionVector target = new PositionVector(2, 2);
+
+    track.getCar(1).setPosition(target);
+    assertEquals(' ', track.getCharAtPosition(2, 4, ConfigSpecification.SpaceType.TRACK));
+    assertEquals('b', track.getCharAtPosition(2, 2, ConfigSpecification.SpaceType.TRACK));
+    assertTrue(track.hasDifferentCarAtPosition(target, track.getCar(0)));
+    assertFalse(track.hasDifferentCarAtPosition(target, track.getCar(1)));
+
+    track.getCar(0).setPosition(target);
+    track.getCar(0).crash();
+    assertEquals(Track.CRASH_INDICATOR, track.getCharAtPosition(2, 2, ConfigSpecification.SpaceType.TRACK));
+    assertTrue(track.hasDifferentCarAtPosition(target, track.getCar(1)));
+
+    track.getCar(0).setPosition(new PositionVector(0, 2));
+    assertEquals('b', track.getCharAtPosition(2, 2, ConfigSpecification.SpaceType.TRACK));
+    assertFalse(track.hasDifferentCarAtPosition(target, track.getCar(1)));
+  }
+
+  /**
+   * Tests if two races on the same layout keep their cars apart.
+   */
+  @Test
+  public void tracks_sharing_a_layout_have_independent_cars() throws InvalidTrackFormatException, FileNotFoundException {
+    TrackLayout layout = TrackLayout.load(new File("./tracks/testingTracks/two-cars.txt"));
+    Track firstRace = new Track(layout);
+    Track secondRace = new Track(layout);
+
+    firstRace.getCar(0).setPosition(new PositionVector(2, 2));
+    firstRace.getCar(0).crash();
+
+    assertSame(layout, secondRace.getLayout());
+    assertEquals(new PositionVector(0, 2), secondRace.getCarPos(0));
+    assertFalse(secondRace.getCar(0).isCrashed());
+    assertEquals('a', secondRace.getCharAtPosition(2, 0, ConfigSpecification.SpaceType.TRACK));
+    assertEquals(Track.CRASH_INDICATOR, firstRace.getCharAtPosition(2, 2, ConfigSpecification.SpaceType.TRACK));
+  }
+
   /**
    * Tests if character wall is set if position parameter is out of bounds.
    */
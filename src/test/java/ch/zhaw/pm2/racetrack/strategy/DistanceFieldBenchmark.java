@@ -0,0 +1,74 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scaling benchmark of the {@link ParallelDistanceFieldEngine}.
+ *
+ * <p>Fills the distance field of a large generated grid with the sequential engines and with the parallel
+ * engine on 1 up to the number of available processors threads, verifies that all results are equal and
+ * prints the best time of each run. Arguments are the width and height of the grid, default 3000 x 3000.</p>
+ */
+public class DistanceFieldBenchmark {
+  static final int SOURCE = 1;
+  private static final int BLOCKED = -1;
+  private static final int PILLAR_SPACING = 8;
+  private static final int RUNS = 5;
+
+  public static void main(String[] args) {
+    int width = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+    int height = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+    System.out.printf("Distance field of %d x %d spaces, best of %d runs%n", width, height, RUNS);
+    int[][] expected = createGrid(width, height);
+    DistanceFieldEngine.queue().fill(expected, SOURCE);
+    long sequential = measure("queue", DistanceFieldEngine.queue(), width, height, expected);
+    measure("wavefront", DistanceFieldEngine.wavefront(), width, height, expected);
+    for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      long time = measure("parallel, " + threads + " threads", new ParallelDistanceFieldEngine(pool), width, height, expected);
+      System.out.printf("  speedup over queue: %.2f%n", (double) sequential / time);
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Creates a grid with a source column on the left and a regular pattern of blocked 2 x 2 pillars.
+   *
+   * @param width  number of columns
+   * @param height number of rows
+   * @return the grid indexed [x][y], not filled yet
+   */
+  static int[][] createGrid(int width, int height) {
+    int[][] grid = new int[width][height];
+    Arrays.fill(grid[0], SOURCE);
+    for (int x = PILLAR_SPACING; x < width - 1; x += PILLAR_SPACING) {
+      for (int y = (x / PILLAR_SPACING % 2) * PILLAR_SPACING / 2; y < height - 1; y += PILLAR_SPACING) {
+        grid[x][y] = BLOCKED;
+        grid[x + 1][y] = BLOCKED;
+        grid[x][y + 1] = BLOCKED;
+        grid[x + 1][y + 1] = BLOCKED;
+      }
+    }
+    return grid;
+  }
+
+  private static long measure(String name, DistanceFieldEngine engine, int width, int height, int[][] expected) {
+    long best = Long.MAX_VALUE;
+    for (int run = 0; run <= RUNS; run++) {
+      int[][] grid = createGrid(width, height);
+      long start = System.nanoTime();
+      engine.fill(grid, SOURCE);
+      long time = System.nanoTime() - start;
+      if (run == 0) {
+        if (!Arrays.deepEquals(grid, expected)) {
+          throw new IllegalStateException(name + " computed different distances than the queue engine");
+        }
+      } else {
+        best = Math.min(best, time);
+      }
+    }
+    System.out.printf("%-24s %8.1f ms%n", name, best / 1e6);
+    return best;
+  }
+}
@@ -0,0 +1,67 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Track;
+import ch.zhaw.pm2.racetrack.game.TrackLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests the sharing and eviction of distance grids.
+ */
+public class DistanceFieldCacheTest {
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
+
+  /**
+   * Tests that two path finders on equal boards compute the distance grid only once
+   */
+  @Test
+  public void path_finders_on_the_same_track_share_the_distance_grid() throws InvalidTrackFormatException, FileNotFoundException {
+    Track first = new Track(new File("./tracks/challenge.txt"));
+    Track second = new Track(new File("./tracks/challenge.txt"));
+    assertEquals(first.getLayout().getContentHash(), TrackLayout.contentHash(second.getGrid()));
+    assertNotEquals(first.getLayout().getContentHash(),
+            new Track(new File("./tracks/oval-clock-up.txt")).getLayout().getContentHash());
+
+    new PathFinderStrategy(first.getLayout(), first.getCarPos(0), PathFinderStrategy.PlanningMode.DEPTH_FIRST, config);
+    long hits = DistanceFieldCache.shared().getHits();
+    long misses = DistanceFieldCache.shared().getMisses();
+    new PathFinderStrategy(second.getGrid(), second.getCarPos(1));
+    assertEquals(hits + 1, DistanceFieldCache.shared().getHits());
+    assertEquals(misses, DistanceFieldCache.shared().getMisses());
+  }
+
+  /**
+   * Tests that the least recently used grid is evicted once the capacity is exceeded
+   */
+  @Test
+  public void least_recently_used_grid_is_evicted() {
+    DistanceFieldCache cache = new DistanceFieldCache(20);
+    int[][] first = cache.get(3, 3, 1, () -> new int[3][3]);
+    cache.get(3, 3, 2, () -> new int[3][3]);
+    assertSame(first, cache.get(3, 3, 1, DistanceFieldCacheTest::notComputed));
+    cache.get(3, 3, 3, () -> new int[3][3]);
+    assertEquals(2, cache.size());
+    assertSame(first, cache.get(3, 3, 1, DistanceFieldCacheTest::notComputed));
+    cache.get(5, 5, 4, () -> new int[5][5]);
+    assertEquals(2, cache.size());
+    assertEquals(4, cache.getMisses());
+  }
+
+  private static int[][] notComputed() {
+    throw new AssertionError("a cached grid was computed again");
+  }
+}
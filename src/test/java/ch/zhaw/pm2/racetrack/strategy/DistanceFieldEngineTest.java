@@ -0,0 +1,106 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Track;
+import ch.zhaw.pm2.racetrack.given.ConfigSpecification;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that all distance field engines compute the same distances.
+ */
+public class DistanceFieldEngineTest {
+  private static final int BLOCKED = -1;
+  private static final int SOURCE = 1;
+
+  /**
+   * Tests the distances on a small grid with a wall between source and target
+   */
+  @Test
+  public void distances_lead_around_walls() {
+    for (DistanceFieldEngine engine : new DistanceFieldEngine[]{DistanceFieldEngine.queue(), DistanceFieldEngine.wavefront(),
+            DistanceFieldEngine.parallel()}) {
+      int[][] grid = new int[4][3];
+      grid[0][0] = SOURCE;
+      grid[1][0] = BLOCKED;
+      grid[1][1] = BLOCKED;
+      engine.fill(grid, SOURCE);
+      assertEquals(2, grid[0][1]);
+      assertEquals(3, grid[1][2]);
+      assertEquals(4, grid[2][1]);
+      assertEquals(5, grid[3][0]);
+      assertEquals(BLOCKED, grid[1][0]);
+    }
+  }
+
+  /**
+   * Tests that the wavefront and parallel engines compute the same distances as the queue engine on all tracks,
+   * using the walls of the track as blocked cells and the cars as sources
+   */
+  @Test
+  public void engines_equal_queue_on_tracks() throws InvalidTrackFormatException, FileNotFoundException {
+    String[] tracks = {"./tracks/challenge.txt", "./tracks/oval-clock-up.txt", "./tracks/oval-anticlock-right.txt",
+            "./tracks/testingTracks/narrow.txt", "./tracks/testingTracks/nine-cars.txt"};
+    for (String trackFile : tracks) {
+      Track track = new Track(new File(trackFile));
+      int[][] expected = blockedGrid(track);
+      int[][] actual = blockedGrid(track);
+      DistanceFieldEngine.queue().fill(expected, SOURCE);
+      DistanceFieldEngine.wavefront().fill(actual, SOURCE);
+      int[][] parallel = blockedGrid(track);
+      DistanceFieldEngine.parallel().fill(parallel, SOURCE);
+      for (int x = 0; x < track.getWidth(); x++) {
+        assertArrayEquals(expected[x], actual[x]);
+        assertArrayEquals(expected[x], parallel[x]);
+      }
+    }
+  }
+
+  /**
+   * Tests that the parallel engine computes the same distances as the queue engine on an open grid large
+   * enough to be split into several tasks, with a single worker and with several workers
+   */
+  @Test
+  public void parallel_equals_queue_on_large_grid() {
+    int[][] expected = DistanceFieldBenchmark.createGrid(600, 400);
+    DistanceFieldEngine.queue().fill(expected, DistanceFieldBenchmark.SOURCE);
+    for (int parallelism : new int[]{1, 4}) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      int[][] actual = DistanceFieldBenchmark.createGrid(600, 400);
+      new ParallelDistanceFieldEngine(pool).fill(actual, DistanceFieldBenchmark.SOURCE);
+      pool.shutdown();
+      for (int x = 0; x < expected.length; x++) {
+        assertArrayEquals(expected[x], actual[x]);
+      }
+    }
+  }
+
+  /**
+   * Tests that free cells can not be used as sources
+   */
+  @Test
+  public void free_source_distance_is_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> DistanceFieldEngine.wavefront().fill(new int[1][1], DistanceFieldEngine.FREE));
+  }
+
+  private int[][] blockedGrid(Track track) {
+    ConfigSpecification.SpaceType[][] spaceTypes = track.getGrid();
+    int[][] grid = new int[track.getWidth()][track.getHeight()];
+    for (int x = 0; x < track.getWidth(); x++) {
+      for (int y = 0; y < track.getHeight(); y++) {
+        grid[x][y] = spaceTypes[x][y] == ConfigSpecification.SpaceType.WALL ? BLOCKED : DistanceFieldEngine.FREE;
+      }
+    }
+    for (int carIndex = 0; carIndex < track.getCarCount(); carIndex++) {
+      grid[track.getCarPos(carIndex).getX()][track.getCarPos(carIndex).getY()] = SOURCE;
+    }
+    return grid;
+  }
+}
@@ -0,0 +1,129 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Car;
+import ch.zhaw.pm2.racetrack.game.Game;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the repair of the route of a car in the incremental planning mode.
+ */
+public class IncrementalPlannerTest {
+  private static final int MAX_TURNS = 100;
+
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
+
+  /**
+   * Tests that a car racing alone follows its route without repairing it
+   */
+  @Test
+  public void route_without_obstacles_is_not_repaired() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy incremental = strategy(track);
+
+    assertEquals(incremental.getMoves().size(), race(track, incremental));
+    assertEquals(0, incremental.getReplanCount());
+  }
+
+  /**
+   * Tests that a car drives around a crashed car standing on its route
+   */
+  @Test
+  public void route_is_repaired_around_crashed_car() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    PathFinderStrategy incremental = strategy(track);
+    Car blocker = track.getCar(1);
+    blocker.setPosition(positionAfter(track.getCarPos(0), incremental.getMoves(), 5));
+    blocker.crash();
+
+    int turns = race(track, incremental);
+    assertFalse(track.getCar(0).isCrashed());
+    assertTrue(turns >= incremental.getMoves().size());
+    assertTrue(incremental.getReplanCount() > 0);
+    assertTrue(incremental.getRepairedNodes() < IncrementalPlanner.MAX_REPAIR_EXPANSIONS);
+  }
+
+  /**
+   * Tests that the route is repaired after the car was moved off it
+   */
+  @Test
+  public void route_is_repaired_after_car_was_moved() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    PathFinderStrategy incremental = strategy(track);
+    Game game = new Game();
+    game.setTrack(track);
+    Car car = track.getCar(0);
+    game.doCarTurn(incremental.nextMove());
+    game.doCarTurn(incremental.nextMove());
+    car.setPosition(PositionVector.add(car.getPosition(), new PositionVector(0, -1)));
+    long replans = incremental.getReplanCount();
+
+    for (int turn = 0; turn < MAX_TURNS && game.getWinner() == Game.NO_WINNER; turn++) {
+      game.doCarTurn(incremental.nextMove());
+    }
+    assertEquals(0, game.getWinner());
+    assertEquals(replans + 1, incremental.getReplanCount());
+  }
+
+  /**
+   * Tests that a board whose policy table would be too large is planned with A* and the route is replayed
+   */
+  @Test
+  public void board_above_state_limit_replays_a_star_route() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    config.setPolicyTableMaxStates(100);
+    PathFinderStrategy incremental = strategy(track);
+
+    assertEquals(PathFinderStrategy.PlanningMode.A_STAR, incremental.getPlanningMode());
+    assertEquals(incremental.getMoves().size(), race(track, incremental));
+    assertEquals(0, incremental.getReplanCount());
+  }
+
+  private PathFinderStrategy strategy(Track track) {
+    return new PathFinderStrategy(track, track.getCar(0), PathFinderStrategy.PlanningMode.INCREMENTAL, config);
+  }
+
+  /**
+   * Lets the first car race alone until it wins or crashes.
+   *
+   * @return number of turns taken
+   */
+  private static int race(Track track, PathFinderStrategy strategy) {
+    Game game = new Game();
+    game.setTrack(track);
+    int turns = 0;
+    while (turns < MAX_TURNS && game.getWinner() == Game.NO_WINNER && !track.getCar(0).isCrashed()) {
+      game.doCarTurn(strategy.nextMove());
+      turns++;
+    }
+    assertEquals(0, game.getWinner());
+    return turns;
+  }
+
+  private static PositionVector positionAfter(PositionVector start, List<PositionVector.Direction> moves, int turns) {
+    PositionVector position = start;
+    PositionVector velocity = new PositionVector(0, 0);
+    for (int turn = 0; turn < turns; turn++) {
+      velocity = PositionVector.add(velocity, moves.get(turn).vector);
+      position = PositionVector.add(position, velocity);
+    }
+    return position;
+  }
+}
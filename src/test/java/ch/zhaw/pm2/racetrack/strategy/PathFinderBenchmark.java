@@ -0,0 +1,84 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Track;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Compares the planning modes of the {@link PathFinderStrategy}.
+ *
+ * <p>Plans the route of the first car of {@code tracks/challenge.txt} and of copies of that track scaled up by
+ * the factors given as arguments (default 2, 4 and 8), and prints the planning time, the number of expanded and
+ * generated states and the number of turns of each planning mode. The depth first search may overflow the stack
+ * on large tracks, which is reported instead of its result.</p>
+ */
+public class PathFinderBenchmark {
+  private static final File TRACK = new File("tracks/challenge.txt");
+  private static final int RUNS = 3;
+
+  public static void main(String[] args) throws IOException, InvalidTrackFormatException {
+    int[] factors = args.length > 0 ? new int[args.length] : new int[]{2, 4, 8};
+    for (int index = 0; index < args.length; index++) {
+      factors[index] = Integer.parseInt(args[index]);
+    }
+    measure(TRACK.getName(), new Track(TRACK));
+    for (int factor : factors) {
+      File scaled = scaleTrack(TRACK, factor);
+      measure(TRACK.getName() + " x" + factor, new Track(scaled));
+      Files.delete(scaled.toPath());
+    }
+  }
+
+  private static void measure(String name, Track track) {
+    System.out.printf("%s (%d x %d)%n", name, track.getWidth(), track.getHeight());
+    Config config = new Config();
+    config.setCacheDirectory(null);
+    for (PathFinderStrategy.PlanningMode planningMode : PathFinderStrategy.PlanningMode.values()) {
+      try {
+        PathFinderStrategy best = null;
+        for (int run = 0; run < RUNS; run++) {
+          PathFinderStrategy pathFinder = new PathFinderStrategy(track.getLayout(), track.getCarPos(0), planningMode,
+                  config);
+          if (best == null || pathFinder.getPlanningTime() < best.getPlanningTime()) {
+            best = pathFinder;
+          }
+        }
+        System.out.printf("  %-12s %10.2f ms %10d expanded %10d generated %5d turns %10d dead end hits%n",
+                planningMode, best.getPlanningTime() / 1e6, best.getExpandedNodes(), best.getGeneratedNodes(),
+                best.getMoves().size(), best.getDeadEndHits());
+      } catch (StackOverflowError e) {
+        System.out.printf("  %-12s stack overflow%n", planningMode);
+      }
+    }
+  }
+
+  /**
+   * Writes a copy of a track in which every space is replaced by a square of factor x factor spaces.
+   * A car is only kept in the top left space of its square.
+   */
+  static File scaleTrack(File trackFile, int factor) throws IOException {
+    List<String> lines = Files.readAllLines(trackFile.toPath(), StandardCharsets.UTF_8);
+    File scaled = File.createTempFile("scaled-track", ".txt");
+    try (PrintWriter writer = new PrintWriter(scaled, StandardCharsets.UTF_8)) {
+      for (String line : lines) {
+        for (int copy = 0; copy < factor; copy++) {
+          StringBuilder row = new StringBuilder();
+          for (char space : line.toCharArray()) {
+            boolean isCar = space != '#' && space != ' ' && space != '<' && space != '>' && space != '^' && space != 'v';
+            row.append(isCar && copy == 0 ? space : isCar ? ' ' : space);
+            row.append(String.valueOf(isCar ? ' ' : space).repeat(factor - 1));
+          }
+          writer.println(row);
+        }
+      }
+    }
+    return scaled;
+  }
+}
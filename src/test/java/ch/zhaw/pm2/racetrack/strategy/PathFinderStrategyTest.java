@@ -1,16 +1,28 @@
 package ch.zhaw.pm2.racetrack.strategy;
 
+import ch.zhaw.pm2.racetrack.Config;
 import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Game;
 import ch.zhaw.pm2.racetrack.game.PositionVector;
 import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PathFinderStrategyTest {
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
 
   /**
    * tests if the distances from the finish line is calculated correctly
@@ -99,4 +111,105 @@ public class PathFinderStrategyTest {
     PathFinderStrategy pathFinder = new PathFinderStrategy(track.getGrid(), track.getCarPos(0));
 
   }
+
+  /**
+   * Tests whether the depth first search skips states which it already found to be dead ends, without a
+   * viability kernel which would prune them before
+   */
+  @Test
+  public void depth_first_search_prunes_known_dead_ends() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/challenge.txt"));
+    PathFinderStrategy pathFinder = new PathFinderStrategy(track.getGrid(), track.getCarPos(0));
+    DepthFirstPlanner planner = new DepthFirstPlanner(pathFinder, Config.DEFAULT_MAX_SEARCH_DEPTH, null);
+    assertEquals(pathFinder.getMoves(), planner.plan(track.getCarPos(0), new PositionVector(0, 0)));
+    assertTrue(planner.getDeadEndHits() > 0);
+    assertEquals(planner.getExpandedNodes(), planner.getDeadEndMisses());
+    assertEquals(38, pathFinder.getMoves().size());
+  }
+
+  /**
+   * Tests whether the depth first search gives up without a route once it reaches the maximum search depth,
+   * and finds the same route as without limit if the depth suffices
+   */
+  @Test
+  public void depth_first_search_is_aborted_at_maximum_depth() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy unlimited = new PathFinderStrategy(track.getGrid(), track.getCarPos(0));
+    config.setMaxSearchDepth(5);
+    PathFinderStrategy shallow = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.DEPTH_FIRST, config);
+    config.setMaxSearchDepth(unlimited.getMoves().size());
+    PathFinderStrategy deepEnough = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.DEPTH_FIRST, config);
+    assertTrue(shallow.isSearchAborted());
+    assertTrue(shallow.getMoves().isEmpty());
+    assertFalse(deepEnough.isSearchAborted());
+    assertEquals(unlimited.getMoves(), deepEnough.getMoves());
+  }
+
+  /**
+   * Tests whether the A* planning mode finds a route which wins the game on a very narrow map,
+   * and is not longer than the route of the depth first search
+   */
+  @Test
+  public void a_star_route_wins_on_narrow_track() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy depthFirst = new PathFinderStrategy(track.getGrid(), track.getCarPos(0));
+    PathFinderStrategy aStar = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    List<PositionVector.Direction> moves = aStar.getMoves();
+    assertTrue(moves.size() <= depthFirst.getMoves().size());
+
+    Game game = new Game();
+    game.setTrack(track);
+    for (PositionVector.Direction move : moves) {
+      assertEquals(Game.NO_WINNER, game.getWinner());
+      game.doCarTurn(move);
+    }
+    assertEquals(0, game.getWinner());
+  }
+
+  /**
+   * Tests whether the A* planning mode finds the same route when it starts to look up its legal moves in the
+   * table of the track layout during the search. With a maximum speed of one, the table is built once the
+   * search checked the moves of a few thousand states.
+   */
+  @Test
+  public void legal_move_table_does_not_change_route() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/challenge.txt"));
+    PathFinderStrategy checked = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    config.setLegalMoveMaxSpeed(1);
+    PathFinderStrategy lookedUp = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    assertTrue(lookedUp.getExpandedNodes() > (long) track.getWidth() * track.getHeight() * 3);
+    assertEquals(checked.getMoves(), lookedUp.getMoves());
+    assertEquals(checked.getExpandedNodes(), lookedUp.getExpandedNodes());
+  }
+
+  /**
+   * Tests whether the depth first search ends without a route on a track whose finish line can only be crossed
+   * in the wrong direction, and whether the car then stands still instead of running out of moves
+   */
+  @Test
+  public void depth_first_search_without_route_stands_still() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/diagonal-wrong-finish-line.txt"));
+    PathFinderStrategy depthFirst = new PathFinderStrategy(track.getGrid(), track.getCarPos(0));
+    assertFalse(depthFirst.isSearchAborted());
+    assertTrue(depthFirst.getMoves().isEmpty());
+    assertEquals(PositionVector.Direction.NONE, depthFirst.nextMove());
+    assertEquals(PositionVector.Direction.NONE, depthFirst.nextMove());
+  }
+
+  /**
+   * Tests whether the A* planning mode finds the route with the fewest turns around an oval track
+   */
+  @Test
+  public void a_star_finds_fewest_turns_around_oval() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    PathFinderStrategy aStar = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    assertEquals(18, aStar.getMoves().size());
+    assertTrue(aStar.getExpandedNodes() > 0);
+  }
 }
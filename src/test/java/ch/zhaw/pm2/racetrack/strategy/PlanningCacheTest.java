@@ -0,0 +1,88 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the on-disk cache of distance grids and routes.
+ */
+public class PlanningCacheTest {
+  @TempDir
+  File cacheDirectory;
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(cacheDirectory);
+  }
+
+  /**
+   * Tests that a path finder created after a restart reads distance grid and route from the cache files
+   * instead of planning again
+   */
+  @Test
+  public void cached_route_is_read_instead_of_planned() throws IOException, InvalidTrackFormatException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    DistanceFieldCache.shared().clear();
+    PathFinderStrategy planned = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    assertTrue(planned.getExpandedNodes() > 0);
+    assertEquals(2, config.getCacheDirectory().list().length);
+
+    DistanceFieldCache.shared().clear();
+    PathFinderStrategy cached = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    assertEquals(0, cached.getExpandedNodes());
+    assertEquals(planned.getMoves(), cached.getMoves());
+    assertEquals(planned.toString(), cached.toString());
+  }
+
+  /**
+   * Tests that a corrupt cache file is ignored and replaced
+   */
+  @Test
+  public void corrupt_cache_file_is_planned_again() throws IOException, InvalidTrackFormatException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    PathFinderStrategy planned = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.DEPTH_FIRST, config);
+    for (File file : config.getCacheDirectory().listFiles()) {
+      try (RandomAccessFile corrupt = new RandomAccessFile(file, "rw")) {
+        long position = corrupt.length() / 2;
+        corrupt.seek(position);
+        int flipped = ~corrupt.read();
+        corrupt.seek(position);
+        corrupt.write(flipped);
+      }
+    }
+
+    DistanceFieldCache.shared().clear();
+    PathFinderStrategy replanned = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.DEPTH_FIRST, config);
+    assertTrue(replanned.getExpandedNodes() > 0);
+    assertEquals(planned.getMoves(), replanned.getMoves());
+    assertEquals(planned.toString(), replanned.toString());
+  }
+
+  /**
+   * Tests that a distance grid too large for one cache file is computed without writing a file
+   */
+  @Test
+  public void oversized_distance_grid_is_not_stored() {
+    PlanningCache cache = new PlanningCache(cacheDirectory);
+    int[][] computed = new int[1][1];
+    assertSame(computed, cache.getDistanceGrid(50_000, 20_000, 1L, () -> computed));
+    assertEquals(0, cacheDirectory.list().length);
+  }
+}
@@ -0,0 +1,117 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Game;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the table of the best move of every state reachable on a track.
+ */
+public class PolicyTableTest {
+  private static final PositionVector STANDING = new PositionVector(0, 0);
+
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
+
+  /**
+   * Tests that the table needs as few turns from the start positions as the A* planning mode
+   */
+  @Test
+  public void turns_to_go_at_start_equal_a_star_route() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    PathFinderStrategy policy = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.POLICY_TABLE, config);
+    PolicyTable table = PolicyTable.build(policy, List.of(track.getCarPos(0), track.getCarPos(1)));
+
+    for (int carIndex = 0; carIndex < track.getCarCount(); carIndex++) {
+      PathFinderStrategy aStar = new PathFinderStrategy(track.getLayout(), track.getCarPos(carIndex),
+              PathFinderStrategy.PlanningMode.A_STAR, config);
+      assertEquals(aStar.getMoves().size(), table.getTurnsToGo(track.getCarPos(carIndex), STANDING));
+      assertEquals(aStar.getMoves().size(), table.route(track.getCarPos(carIndex), STANDING).size());
+    }
+    assertEquals(18, policy.getMoves().size());
+  }
+
+  /**
+   * Tests that a car whose moves are looked up in the table in every turn wins
+   */
+  @Test
+  public void car_looking_up_its_moves_wins_on_narrow_track() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy policy = new PathFinderStrategy(track, track.getCar(0),
+            PathFinderStrategy.PlanningMode.POLICY_TABLE, config);
+
+    Game game = new Game();
+    game.setTrack(track);
+    for (int turn = 0; turn < policy.getMoves().size(); turn++) {
+      assertEquals(Game.NO_WINNER, game.getWinner());
+      game.doCarTurn(policy.nextMove());
+    }
+    assertEquals(0, game.getWinner());
+  }
+
+  /**
+   * Tests that the table knows the best move of states off the fastest route
+   */
+  @Test
+  public void knows_moves_of_states_off_the_fastest_route() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy policy = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.POLICY_TABLE, config);
+    PolicyTable table = PolicyTable.build(policy, List.of(track.getCarPos(0)));
+
+    PositionVector slow = new PositionVector(2, 3);
+    PositionVector down = new PositionVector(0, 1);
+    assertNotNull(table.getMove(slow, down));
+    assertTrue(table.getTurnsToGo(slow, down) > 0);
+    assertEquals(table.getTurnsToGo(slow, down), table.route(slow, down).size());
+    assertNull(table.getMove(new PositionVector(0, 0), STANDING));
+  }
+
+  /**
+   * Tests that the speed bound of the table index allows exactly the speeds a car can reach on a board
+   */
+  @Test
+  public void speed_bound_covers_reachable_speeds() {
+    assertEquals(0, PolicyTable.maxSpeed(1));
+    assertEquals(1, PolicyTable.maxSpeed(2));
+    assertEquals(1, PolicyTable.maxSpeed(3));
+    assertEquals(2, PolicyTable.maxSpeed(4));
+    assertEquals(10, PolicyTable.maxSpeed(63));
+    assertEquals(65_535, PolicyTable.maxSpeed(Integer.MAX_VALUE));
+  }
+
+  /**
+   * Tests that a board with more states than the configured limit is planned with A* instead of a table
+   */
+  @Test
+  public void board_above_state_limit_is_planned_with_a_star() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy aStar = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    config.setPolicyTableMaxStates(100);
+    PathFinderStrategy policy = new PathFinderStrategy(track, track.getCar(0),
+            PathFinderStrategy.PlanningMode.POLICY_TABLE, config);
+
+    assertEquals(PathFinderStrategy.PlanningMode.A_STAR, policy.getPlanningMode());
+    assertEquals(aStar.getMoves(), policy.getMoves());
+    assertEquals(aStar.getMoves().get(0), policy.nextMove());
+  }
+}
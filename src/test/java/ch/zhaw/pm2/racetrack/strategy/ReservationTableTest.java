@@ -0,0 +1,163 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Car;
+import ch.zhaw.pm2.racetrack.game.Game;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the spaces booked by the cars for the turns to come.
+ */
+public class ReservationTableTest {
+  private static final int MAX_TURNS = 200;
+
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
+
+  /**
+   * Tests that a move books the spaces of its line for its turn only, and only for the other cars
+   */
+  @Test
+  public void booked_move_blocks_other_cars_in_its_turn() {
+    ReservationTable reservations = new ReservationTable(10, 10);
+    reservations.book('a', 1, 1, 5, 3, 4);
+
+    assertEquals('a', reservations.getOwner(1, 1, 4));
+    assertEquals('a', reservations.getOwner(5, 3, 4));
+    assertEquals(ReservationTable.NO_CAR, reservations.getOwner(5, 3, 5));
+    assertFalse(reservations.isFree('b', 3, 0, 3, 5, 4));
+    assertTrue(reservations.isFree('b', 3, 0, 3, 5, 3));
+    assertTrue(reservations.isFree('a', 3, 0, 3, 5, 4));
+    assertTrue(reservations.hasBookingsOfOtherCars('b'));
+    assertFalse(reservations.hasBookingsOfOtherCars('a'));
+  }
+
+  /**
+   * Tests that releasing the bookings of a car keeps the bookings of the other cars
+   */
+  @Test
+  public void release_keeps_bookings_of_other_cars() {
+    ReservationTable reservations = new ReservationTable(50, 50);
+    for (int turn = 0; turn < 40; turn++) {
+      reservations.book('a', 0, turn, 49, turn, turn);
+      reservations.book('b', turn, 0, turn, 49, turn);
+    }
+    int bookingsOfB = reservations.size() - 40 * 50;
+    reservations.release('a');
+
+    assertEquals(bookingsOfB, reservations.size());
+    for (int turn = 0; turn < 40; turn++) {
+      for (int y = 0; y < 50; y++) {
+        assertEquals(y == turn ? ReservationTable.NO_CAR : 'b', reservations.getOwner(turn, y, turn));
+      }
+      assertEquals(ReservationTable.NO_CAR, reservations.getOwner(49, turn, turn));
+    }
+  }
+
+  /**
+   * Tests that a new turn starts when a car moves a second time
+   */
+  @Test
+  public void turn_advances_when_a_car_moves_again() {
+    ReservationTable reservations = new ReservationTable(10, 10);
+    reservations.recordMove('a');
+
+    assertEquals(1, reservations.getNextTurn('a'));
+    assertEquals(0, reservations.getNextTurn('b'));
+    reservations.recordMove('b');
+    reservations.recordMove('a');
+    assertEquals(2, reservations.getNextTurn('a'));
+    assertEquals(1, reservations.getNextTurn('b'));
+  }
+
+  /**
+   * Tests that a new race on a track drops the bookings and the turns of the last race
+   */
+  @Test
+  public void new_race_resets_table_of_track() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    ReservationTable reservations = ReservationTable.of(track);
+    reservations.book('a', 1, 1, 5, 3, 4);
+    reservations.recordMove('a');
+    int race = reservations.getRace();
+
+    new Game().setTrack(track);
+    assertEquals(0, reservations.size());
+    assertEquals(0, reservations.getNextTurn('a'));
+    assertEquals(race + 1, reservations.getRace());
+  }
+
+  /**
+   * Tests that a path finder created during the race books its route from the current turn of the race
+   */
+  @Test
+  public void path_finder_created_during_race_books_current_turn()
+          throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    for (int carIndex = 0; carIndex < track.getCarCount(); carIndex++) {
+      track.getCar(carIndex).setMoveStrategy(strategy(track, carIndex));
+    }
+    Game game = new Game();
+    game.setTrack(track);
+    int rounds = 3;
+    for (int move = 0; move < rounds * track.getCarCount(); move++) {
+      game.doCarTurn(track.getCar(game.getCurrentCarIndex()).getMoveStrategy().nextMove());
+      game.switchToNextActiveCar();
+    }
+    Car lastCar = track.getCar(track.getCarCount() - 1);
+    lastCar.setMoveStrategy(strategy(track, track.getCarCount() - 1));
+    while (track.getCar(game.getCurrentCarIndex()) != lastCar) {
+      game.doCarTurn(track.getCar(game.getCurrentCarIndex()).getMoveStrategy().nextMove());
+      game.switchToNextActiveCar();
+    }
+    PositionVector position = lastCar.getPosition();
+    lastCar.getMoveStrategy().nextMove();
+
+    ReservationTable reservations = ReservationTable.of(track);
+    assertEquals(lastCar.getId(), reservations.getOwner(position.getX(), position.getY(), rounds));
+    assertEquals(ReservationTable.NO_CAR, reservations.getOwner(position.getX(), position.getY(), 0));
+  }
+
+  /**
+   * Tests that two cars planning around each others bookings finish the race without crashing
+   */
+  @Test
+  public void cars_planning_around_bookings_do_not_crash() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    for (int carIndex = 0; carIndex < track.getCarCount(); carIndex++) {
+      track.getCar(carIndex).setMoveStrategy(strategy(track, carIndex));
+    }
+    assertSame(ReservationTable.of(track), ReservationTable.of(track));
+
+    Game game = new Game();
+    game.setTrack(track);
+    for (int turn = 0; turn < MAX_TURNS && game.getWinner() == Game.NO_WINNER; turn++) {
+      game.doCarTurn(track.getCar(game.getCurrentCarIndex()).getMoveStrategy().nextMove());
+      game.switchToNextActiveCar();
+    }
+    assertNotEquals(Game.NO_WINNER, game.getWinner());
+    assertEquals(track.getCarCount(), track.uncrashedCarCount());
+    assertTrue(ReservationTable.of(track).size() > 0);
+  }
+
+  private PathFinderStrategy strategy(Track track, int carIndex) {
+    return new PathFinderStrategy(track, track.getCar(carIndex), PathFinderStrategy.PlanningMode.INCREMENTAL, config);
+  }
+}
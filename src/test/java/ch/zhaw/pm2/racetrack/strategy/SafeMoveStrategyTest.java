@@ -0,0 +1,83 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.Game;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the safety filter which vetoes moves leaving the viability kernel.
+ */
+public class SafeMoveStrategyTest {
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
+
+  /**
+   * Tests that a car which always wants to accelerate downwards does not crash into the walls of the narrow track
+   */
+  @Test
+  public void vetoes_moves_into_walls() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    SafeMoveStrategy safe = new SafeMoveStrategy(() -> PositionVector.Direction.DOWN, track.getCar(0),
+            track.getLayout(), config);
+
+    Game game = new Game();
+    game.setTrack(track);
+    for (int turn = 0; turn < 30 && game.getWinner() == Game.NO_WINNER; turn++) {
+      game.doCarTurn(safe.nextMove());
+      assertFalse(track.getCar(0).isCrashed());
+    }
+    assertTrue(safe.getVetoedMoves() > 0);
+  }
+
+  /**
+   * Tests that moves which crash at once are still vetoed on a board whose kernel would be too large
+   */
+  @Test
+  public void vetoes_crashing_moves_without_kernel() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    config.setPolicyTableMaxStates(0);
+    SafeMoveStrategy safe = new SafeMoveStrategy(() -> PositionVector.Direction.LEFT, track.getCar(0),
+            track.getLayout(), config);
+
+    Game game = new Game();
+    game.setTrack(track);
+    game.doCarTurn(safe.nextMove());
+    assertFalse(track.getCar(0).isCrashed());
+    assertEquals(new PositionVector(2, 2), track.getCarPos(0));
+    assertEquals(1, safe.getVetoedMoves());
+  }
+
+  /**
+   * Tests that the moves of a strategy which follows the fastest route are all passed on
+   */
+  @Test
+  public void passes_on_safe_moves() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy fastest = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    SafeMoveStrategy safe = new SafeMoveStrategy(fastest, track.getCar(0), track.getLayout(), config);
+
+    Game game = new Game();
+    game.setTrack(track);
+    for (int turn = 0; turn < fastest.getMoves().size(); turn++) {
+      game.doCarTurn(safe.nextMove());
+    }
+    assertEquals(0, game.getWinner());
+    assertEquals(0, safe.getVetoedMoves());
+  }
+}
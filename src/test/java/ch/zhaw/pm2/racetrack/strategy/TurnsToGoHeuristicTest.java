@@ -0,0 +1,66 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the lower bound on the turns to go of each space and speed.
+ */
+public class TurnsToGoHeuristicTest {
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
+
+  /**
+   * Tests that the estimates along the fastest route never exceed the remaining turns
+   */
+  @Test
+  public void never_overestimates_along_fastest_route() throws InvalidTrackFormatException, FileNotFoundException {
+    for (String trackFile : List.of("./tracks/challenge.txt", "./tracks/oval-clock-up.txt",
+            "./tracks/testingTracks/narrow.txt")) {
+      Track track = new Track(new File(trackFile));
+      PathFinderStrategy aStar = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+              PathFinderStrategy.PlanningMode.A_STAR, config);
+      List<PositionVector.Direction> moves = aStar.getMoves();
+      int x = track.getCarPos(0).getX();
+      int y = track.getCarPos(0).getY();
+      int velocityX = 0;
+      int velocityY = 0;
+      for (int turn = 0; turn < moves.size(); turn++) {
+        int estimate = TurnsToGoHeuristic.estimate(aStar, x, y, velocityX, velocityY);
+        assertTrue(estimate >= 1, trackFile + " turn " + turn);
+        assertTrue(estimate <= moves.size() - turn, trackFile + " turn " + turn);
+        velocityX += moves.get(turn).vector.getX();
+        velocityY += moves.get(turn).vector.getY();
+        x += velocityX;
+        y += velocityY;
+      }
+    }
+  }
+
+  /**
+   * Tests that the bound is the fewest turns in which a car speeding up in every turn covers the distance
+   */
+  @Test
+  public void lower_bound_covers_distance_with_acceleration_of_one() {
+    assertEquals(1, TurnsToGoHeuristic.lowerBound(2, 0));
+    assertEquals(1, TurnsToGoHeuristic.lowerBound(3, 0));
+    assertEquals(4, TurnsToGoHeuristic.lowerBound(12, 0));
+    assertEquals(3, TurnsToGoHeuristic.lowerBound(12, 3));
+    assertEquals(1, TurnsToGoHeuristic.lowerBound(12, 10));
+  }
+}
@@ -0,0 +1,116 @@
+package ch.zhaw.pm2.racetrack.strategy;
+
+import ch.zhaw.pm2.racetrack.Config;
+import ch.zhaw.pm2.racetrack.exceptions.InvalidTrackFormatException;
+import ch.zhaw.pm2.racetrack.game.PositionVector;
+import ch.zhaw.pm2.racetrack.game.Track;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the states from which the finish line can still be reached, and the searches pruned with them.
+ */
+public class ViabilityKernelTest {
+  private static final PositionVector STANDING = new PositionVector(0, 0);
+
+  private final Config config = new Config();
+
+  @BeforeEach
+  void init() {
+    config.setCacheDirectory(null);
+  }
+
+  /**
+   * Tests that the kernel holds exactly the states of the policy table which have a route to the finish line
+   */
+  @Test
+  public void kernel_agrees_with_policy_table() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/oval-clock-up.txt"));
+    PathFinderStrategy pathFinder = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    PolicyTable table = PolicyTable.build(pathFinder, List.of(track.getCarPos(0), track.getCarPos(1)));
+    ViabilityKernel kernel = ViabilityKernel.build(pathFinder);
+
+    int maxSpeedX = PolicyTable.maxSpeed(pathFinder.width);
+    int maxSpeedY = PolicyTable.maxSpeed(pathFinder.height);
+    int viableStates = 0;
+    for (int y = 0; y < pathFinder.height; y++) {
+      for (int x = 0; x < pathFinder.width; x++) {
+        for (int velocityY = -maxSpeedY; velocityY <= maxSpeedY; velocityY++) {
+          for (int velocityX = -maxSpeedX; velocityX <= maxSpeedX; velocityX++) {
+            int state = table.indexOf(x, y, velocityX, velocityY);
+            if (state != PolicyTable.NO_STATE) {
+              assertEquals(table.getTurnsToGo(state) != 0, kernel.contains(x, y, velocityX, velocityY));
+              viableStates += table.getTurnsToGo(state) != 0 ? 1 : 0;
+            }
+          }
+        }
+      }
+    }
+    assertTrue(viableStates > 0);
+    assertTrue(kernel.size() >= viableStates);
+  }
+
+  /**
+   * Tests that the kernel holds the start and leaves out the states which can only crash
+   */
+  @Test
+  public void kernel_leaves_out_doomed_states() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/testingTracks/narrow.txt"));
+    PathFinderStrategy pathFinder = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    ViabilityKernel kernel = pathFinder.getViabilityKernel();
+
+    assertTrue(kernel.contains(track.getCarPos(0), STANDING));
+    PositionVector aboveWall = new PositionVector(2, 5);
+    PositionVector downwards = new PositionVector(0, 2);
+    assertTrue(kernel.isKnown(aboveWall, downwards));
+    assertFalse(kernel.contains(aboveWall, downwards));
+    assertTrue(kernel.isDoomed(aboveWall.getX(), aboveWall.getY(), downwards.getX(), downwards.getY()));
+    assertFalse(kernel.isDoomed(-1, 0, 0, 0));
+  }
+
+  /**
+   * Tests that the depth first search finds the same route with fewer expansions when it skips doomed states
+   */
+  @Test
+  public void depth_first_with_kernel_finds_same_route() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/challenge.txt"));
+    PathFinderStrategy pathFinder = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.DEPTH_FIRST, config);
+    DepthFirstPlanner unpruned = new DepthFirstPlanner(pathFinder, config.getMaxSearchDepth(), null);
+    DepthFirstPlanner pruned = new DepthFirstPlanner(pathFinder, config.getMaxSearchDepth(),
+            pathFinder.getViabilityKernel());
+
+    List<PositionVector.Direction> route = unpruned.plan(track.getCarPos(0), STANDING);
+    assertEquals(route, pruned.plan(track.getCarPos(0), STANDING));
+    assertEquals(route, pathFinder.getMoves());
+    assertTrue(pruned.getExpandedNodes() < unpruned.getExpandedNodes());
+  }
+
+  /**
+   * Tests that A* finds the same number of turns when it skips doomed states
+   */
+  @Test
+  public void a_star_with_kernel_finds_fewest_turns() throws InvalidTrackFormatException, FileNotFoundException {
+    Track track = new Track(new File("./tracks/challenge.txt"));
+    PathFinderStrategy pathFinder = new PathFinderStrategy(track.getLayout(), track.getCarPos(0),
+            PathFinderStrategy.PlanningMode.A_STAR, config);
+    AStarPlanner unpruned = new AStarPlanner(pathFinder, null);
+    AStarPlanner pruned = new AStarPlanner(pathFinder, pathFinder.getViabilityKernel());
+
+    int unprunedTurns = unpruned.plan(track.getCarPos(0), STANDING).size();
+    int prunedTurns = pruned.plan(track.getCarPos(0), STANDING).size();
+    assertEquals(pathFinder.getMoves().size(), unprunedTurns);
+    assertEquals(unprunedTurns, prunedTurns);
+    assertTrue(pruned.getExpandedNodes() <= unpruned.getExpandedNodes());
+  }
+}